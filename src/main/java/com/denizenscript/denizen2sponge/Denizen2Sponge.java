@@ -30,8 +30,17 @@ import com.denizenscript.denizen2sponge.spongescripts.AdvancementScript;
 import com.denizenscript.denizen2sponge.spongescripts.GameCommandScript;
 import com.denizenscript.denizen2sponge.tags.handlers.*;
 import com.denizenscript.denizen2sponge.tags.objects.*;
+import com.denizenscript.denizen2sponge.utilities.EntityCache;
+import com.denizenscript.denizen2sponge.utilities.EntitySpatialIndex;
 import com.denizenscript.denizen2sponge.utilities.GameRules;
+import com.denizenscript.denizen2sponge.utilities.ParseCache;
+import com.denizenscript.denizen2sponge.utilities.PlayerIndex;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.HeightmapCache;
+import com.denizenscript.denizen2sponge.utilities.flags.EntityFlagIndex;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagHelper;
+import com.denizenscript.denizen2sponge.utilities.flags.ServerFlags;
+import com.denizenscript.denizen2sponge.utilities.flags.storage.*;
 import com.google.inject.Inject;
 import org.slf4j.Logger;
 import org.spongepowered.api.Sponge;
@@ -174,17 +183,25 @@ public class Denizen2Sponge {
         Denizen2Core.register(new SaveDataCommand());
         Denizen2Core.register(new ShutdownCommand());
         // Commands: World
+        Denizen2Core.register(new AnalyzeBlocksCommand());
         Denizen2Core.register(new DeleteWorldCommand());
         Denizen2Core.register(new DifficultyCommand());
         Denizen2Core.register(new EditBlockCommand());
         Denizen2Core.register(new ExplodeCommand());
+        Denizen2Core.register(new FillCommand());
+        Denizen2Core.register(new FindBlocksCommand());
+        Denizen2Core.register(new LineOfSightCommand());
         Denizen2Core.register(new LoadWorldCommand());
+        Denizen2Core.register(new PasteSchematicCommand());
         Denizen2Core.register(new PlayEffectCommand());
         Denizen2Core.register(new PlaySoundCommand());
         Denizen2Core.register(new RemoveGameRuleCommand());
+        Denizen2Core.register(new RestoreCommand());
+        Denizen2Core.register(new SaveSchematicCommand());
         Denizen2Core.register(new SetBlockCommand());
         Denizen2Core.register(new SetGameRuleCommand());
         Denizen2Core.register(new StrikeCommand());
+        Denizen2Core.register(new UndoCommand());
         Denizen2Core.register(new UnloadWorldCommand());
         Denizen2Core.register(new ViewDistanceCommand());
         Denizen2Core.register(new WeatherCommand());
@@ -274,6 +291,13 @@ public class Denizen2Sponge {
         ExCommand.register();
         // Sponge related Helpers
         FlagHelper.register();
+        EntityFlagIndex.register();
+        EntityCache.register();
+        PlayerIndex.register();
+        ParseCache.register();
+        EntitySpatialIndex.register();
+        BlockTaskScheduler.register();
+        HeightmapCache.register();
         GameRules.init();
         // Server Flags
         loadServerFlags();
@@ -285,6 +309,8 @@ public class Denizen2Sponge {
         AdvancementScript.buildAll();
         // Central loop
         Sponge.getScheduler().createTaskBuilder().intervalTicks(1).execute(() -> Denizen2Core.tick(0.05)).submit(this);
+        // Flag storage upkeep
+        Sponge.getScheduler().createTaskBuilder().intervalTicks(1).execute(() -> serverFlags.tick()).submit(this);
         // Call loaded event for sub-plugins to listen for
         Sponge.getEventManager().post(new Denizen2SpongeLoadedEvent(getGenericCause()));
         // TODO: Config option -> readyToSpamEvents = true;
@@ -298,6 +324,7 @@ public class Denizen2Sponge {
     public void onServerStop(GameStoppedEvent event) {
         // Save server data
         saveServerFlags();
+        serverFlags.close();
         // Disable Denizen2
         Denizen2Core.unload();
     }
@@ -306,39 +333,52 @@ public class Denizen2Sponge {
         return new File(getMainDirectory(), "./config/config.yml");
     }
 
-    public void loadServerFlags() {
-        try {
-            if (!getServerFlagsFile().exists()) {
-                serverFlagMap = new MapTag();
-                return;
-            }
-            InputStream is = new FileInputStream(getServerFlagsFile());
-            String str = CoreUtilities.streamToString(is);
-            is.close();
-            serverFlagMap = (MapTag) Denizen2Core.loadFromSaved(Debug::error, str);
+    public FlagStorage createFlagStorage() {
+        String type = Settings.flagStorage();
+        switch (type) {
+            case "file":
+                return new FileFlagStorage(getServerFlagsFile(), getServerFlagPartitionsFolder());
+            case "journal":
+                return new JournaledFlagStorage(getServerFlagsFile(), getServerFlagPartitionsFolder());
+            case "replicated":
+                Debug.info("Server flags use replicated storage with the built-in loopback transport: "
+                        + "changes won't leave this server unless a plugin installs a network transport.");
+                return new ReplicatedFlagStorage(new JournaledFlagStorage(getServerFlagsFile(), getServerFlagPartitionsFolder()),
+                        new LoopbackFlagTransport(Settings.flagReplicationChannel()), Settings.flagReplicationNode());
+            default:
+                Debug.error("Unknown flag storage type '" + type + "', defaulting to 'file'.");
+                return new FileFlagStorage(getServerFlagsFile(), getServerFlagPartitionsFolder());
         }
-        catch (Exception e) {
-            Debug.exception(e);
+    }
+
+    public void loadServerFlags() {
+        if (serverFlags == null) {
+            serverFlags = new ServerFlags(createFlagStorage());
         }
+        serverFlags.load();
     }
 
     public void saveServerFlags() {
-        try {
-            String flags = serverFlagMap.savable();
-            OutputStream os = new FileOutputStream(getServerFlagsFile(), false);
-            OutputStreamWriter osw = new OutputStreamWriter(os);
-            osw.write(flags);
-            osw.flush();
-            os.flush();
-            osw.close();
-            os.close();
-        }
-        catch (Exception e) {
-            Debug.exception(e);
-        }
+        serverFlags.save();
+    }
+
+    public void serverFlagChanged(String flag, MapTag entry) {
+        serverFlags.flagChanged(flag, entry);
     }
 
-    public MapTag serverFlagMap = new MapTag();
+    public ServerFlags serverFlags;
+
+    public File getBlockSnapshotsFolder() {
+        return new File(getMainDirectory(), "./block_snapshots/");
+    }
+
+    public File getSchematicsFolder() {
+        return new File(getMainDirectory(), "./schematics/");
+    }
+
+    public File getServerFlagPartitionsFolder() {
+        return new File(getMainDirectory(), "./server_flags/");
+    }
 
     public File getServerFlagsFile() {
         return new File(getMainDirectory(), "./server_flags.yml");
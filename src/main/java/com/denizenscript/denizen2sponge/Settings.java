@@ -1,6 +1,8 @@
 package com.denizenscript.denizen2sponge;
 
 import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.utilities.CoreUtilities;
 
 public class Settings {
 
@@ -10,6 +12,12 @@ public class Settings {
         }, input).getInternal();
     }
 
+    private static long tryLong(String input) {
+        return IntegerTag.getFor((e) -> {
+            throw new RuntimeException("Invalid integer config setting: " + e);
+        }, input).getInternal();
+    }
+
     public static boolean enforceLocale() {
         return tryBool(Denizen2Sponge.instance.config.getString("Enforce Locale", "true"));
     }
@@ -25,4 +33,49 @@ public class Settings {
     public static boolean noUnrelatedFiles() {
         return tryBool(Denizen2Sponge.instance.config.getString("Files.Advanced Protection", "true"));
     }
+
+    public static String flagStorage() {
+        return CoreUtilities.toLowerCase(Denizen2Sponge.instance.config.getString("Flags.Storage", "file"));
+    }
+
+    public static String flagReplicationChannel() {
+        return Denizen2Sponge.instance.config.getString("Flags.Replication.Channel", "default");
+    }
+
+    public static String flagReplicationNode() {
+        return Denizen2Sponge.instance.config.getString("Flags.Replication.Node", "node");
+    }
+
+    // The block settings are read by every block operation, so they are only parsed once.
+    // The config is only loaded at startup, so they never change afterwards.
+
+    private static Long blockBudget, blockTimeBudget, blockSnapshotMemoryLimit, shapePointLimit;
+
+    public static long blockBudget() {
+        if (blockBudget == null) {
+            blockBudget = tryLong(Denizen2Sponge.instance.config.getString("Blocks.Budget Per Tick", "50000"));
+        }
+        return blockBudget;
+    }
+
+    public static long blockTimeBudget() {
+        if (blockTimeBudget == null) {
+            blockTimeBudget = tryLong(Denizen2Sponge.instance.config.getString("Blocks.Time Budget Per Tick", "10"));
+        }
+        return blockTimeBudget;
+    }
+
+    public static long blockSnapshotMemoryLimit() {
+        if (blockSnapshotMemoryLimit == null) {
+            blockSnapshotMemoryLimit = tryLong(Denizen2Sponge.instance.config.getString("Blocks.Snapshot Memory Limit", "16"));
+        }
+        return blockSnapshotMemoryLimit;
+    }
+
+    public static long shapePointLimit() {
+        if (shapePointLimit == null) {
+            shapePointLimit = tryLong(Denizen2Sponge.instance.config.getString("Blocks.Shape Point Limit", "200000"));
+        }
+        return shapePointLimit;
+    }
 }
@@ -4,13 +4,13 @@ import com.denizenscript.denizen2core.commands.AbstractCommand;
 import com.denizenscript.denizen2core.commands.CommandEntry;
 import com.denizenscript.denizen2core.commands.CommandQueue;
 import com.denizenscript.denizen2core.tags.AbstractTagObject;
-import com.denizenscript.denizen2core.tags.objects.DurationTag;
-import com.denizenscript.denizen2core.tags.objects.MapTag;
-import com.denizenscript.denizen2core.tags.objects.TimeTag;
+import com.denizenscript.denizen2core.tags.objects.*;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
 import com.denizenscript.denizen2sponge.Denizen2Sponge;
 import com.denizenscript.denizen2sponge.tags.objects.EntityTag;
+import com.denizenscript.denizen2sponge.utilities.Utilities;
+import com.denizenscript.denizen2sponge.utilities.flags.EntityFlagIndex;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagHelper;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMap;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMapDataImpl;
@@ -29,13 +29,18 @@ public class FlagCommand extends AbstractCommand {
     // @Name flag
     // @Arguments <entity>/'server' <map of flags to set>
     // @Short flags an entity with some data.
-    // @Updated 2017/02/15
+    // @Updated 2018/03/02
     // @Group Entity
     // @Minimum 2
     // @Maximum 2
     // @Named duration (DurationTag) Sets the duration to apply to the flags being set.
+    // @Named operation (TextTag) Sets the operation to apply with the given values: 'set' (default), 'add' or 'subtract'.
+    // @Named min (NumberTag) Sets the minimum value a counter flag can be brought to by the add or subtract operations.
+    // @Named max (NumberTag) Sets the maximum value a counter flag can be brought to by the add or subtract operations.
     // @Description
     // Adds or edits flags on an entity (including players, etc.).
+    // The add and subtract operations treat the flags as numeric counters, where missing or expired flags count as 0.
+    // Counters keep their previous duration unless a new one is specified.
     // See also the <@link command unflag>unflag command<@/link>.
     // @Example
     // # Mark the player as a VIP.
@@ -43,6 +48,9 @@ public class FlagCommand extends AbstractCommand {
     // @Example
     // # Increase the player's XP by 5, reverting to 0 (unset) after one minute.
     // - flag <player> xp:<player.flag[xp].add[5]||5> --duration 1m
+    // @Example
+    // # Count a kill for the player, without letting the counter go above 1000.
+    // - flag <player> kills:1 --operation add --max 1000
     // -->
 
     @Override
@@ -68,7 +76,7 @@ public class FlagCommand extends AbstractCommand {
     @Override
     public void execute(CommandQueue queue, CommandEntry entry) {
         AbstractTagObject ato = entry.getArgumentObject(queue, 0);
-        MapTag basic;
+        MapTag basic = null;
         Entity entity = null;
         TimeTag tt = null;
         if (entry.namedArgs.containsKey("duration")) {
@@ -76,10 +84,23 @@ public class FlagCommand extends AbstractCommand {
             LocalDateTime ldt = LocalDateTime.now(ZoneId.of("UTC")).plus((long)(duration.getInternal() * 1000), ChronoField.MILLI_OF_SECOND.getBaseUnit());
             tt = new TimeTag(ldt);
         }
-        if (CoreUtilities.toLowerCase(ato.toString()).equals("server")) {
-            basic = Denizen2Sponge.instance.serverFlagMap;
+        String operation = "set";
+        if (entry.namedArgs.containsKey("operation")) {
+            operation = CoreUtilities.toLowerCase(entry.getNamedArgumentObject(queue, "operation").toString());
+            if (!operation.equals("set") && !operation.equals("add") && !operation.equals("subtract")) {
+                queue.handleError(entry, "Invalid flag operation '" + operation + "'!");
+                return;
+            }
+        }
+        NumberTag min = null;
+        if (entry.namedArgs.containsKey("min")) {
+            min = NumberTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "min"));
         }
-        else {
+        NumberTag max = null;
+        if (entry.namedArgs.containsKey("max")) {
+            max = NumberTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "max"));
+        }
+        if (!CoreUtilities.toLowerCase(ato.toString()).equals("server")) {
             EntityTag entityTag = EntityTag.getFor(queue.error, ato);
             entity = entityTag.getInternal();
             Optional<FlagMap> fm = entity.get(FlagHelper.FLAGMAP);
@@ -91,13 +112,29 @@ public class FlagCommand extends AbstractCommand {
             }
         }
         MapTag propertyMap = MapTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
+        boolean counter = !operation.equals("set");
         for (Map.Entry<String, AbstractTagObject> dat : propertyMap.getInternal().entrySet()) {
-            MapTag gen = new MapTag();
-            gen.getInternal().put("value", dat.getValue());
-            if (tt != null) {
-                gen.getInternal().put("duration", tt);
+            String flagName = CoreUtilities.toLowerCase(dat.getKey());
+            // Server flags are stored in separate partitions based on their namespace.
+            MapTag flags = entity == null ? Denizen2Sponge.instance.serverFlags.getFor(flagName) : basic;
+            MapTag gen;
+            if (counter) {
+                gen = adjustCounter(queue, flags, flagName, dat.getValue(), operation.equals("subtract"), min, max, tt);
+            }
+            else {
+                gen = new MapTag();
+                gen.getInternal().put("value", dat.getValue());
+                if (tt != null) {
+                    gen.getInternal().put("duration", tt);
+                }
+                flags.getInternal().put(flagName, gen);
+            }
+            if (entity != null) {
+                EntityFlagIndex.set(entity.getUniqueId(), flagName, gen);
+            }
+            else {
+                Denizen2Sponge.instance.serverFlagChanged(flagName, gen);
             }
-            basic.getInternal().put(CoreUtilities.toLowerCase(dat.getKey()), gen);
         }
         if (entity != null) {
             entity.offer(new FlagMapDataImpl(new FlagMap(basic)));
@@ -105,14 +142,73 @@ public class FlagCommand extends AbstractCommand {
                 queue.outGood("Flagged the entity "
                         + ColorSet.emphasis + new EntityTag(entity).debug() + ColorSet.good
                         + " with the specified data... (" + propertyMap.debug() + ")"
+                        + " Using operation: " + ColorSet.emphasis + operation + ColorSet.good + "."
                         + (tt == null ? " For unlimited time. " : " Until time: " + tt.debug()));
             }
         }
         else {
             if (queue.shouldShowGood()) {
                 queue.outGood("Flagged the server with the specified data... (" + propertyMap.debug() + ")"
+                        + " Using operation: " + ColorSet.emphasis + operation + ColorSet.good + "."
                         + (tt == null ? " For unlimited time. " : " Until time: " + tt.debug()));
             }
         }
     }
+
+    private static boolean isWhole(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 9007199254740992.0;
+    }
+
+    private static MapTag adjustCounter(CommandQueue queue, MapTag flags, String flagName, AbstractTagObject amount,
+                                        boolean subtract, NumberTag min, NumberTag max, TimeTag tt) {
+        MapTag gen = null;
+        AbstractTagObject current = null;
+        if (Utilities.flagIsValidAndNotExpired(queue.error, flags, flagName)) {
+            AbstractTagObject existing = flags.getInternal().get(flagName);
+            if (existing instanceof MapTag) {
+                gen = (MapTag) existing;
+            }
+            else {
+                gen = MapTag.getFor(queue.error, existing);
+                flags.getInternal().put(flagName, gen);
+            }
+            current = gen.getInternal().get("value");
+        }
+        else {
+            gen = new MapTag();
+            flags.getInternal().put(flagName, gen);
+        }
+        AbstractTagObject result;
+        double change = NumberTag.getFor(queue.error, amount).getInternal();
+        if (subtract) {
+            change = -change;
+        }
+        if (current instanceof IntegerTag && isWhole(change)) {
+            long value = ((IntegerTag) current).getInternal() + (long) change;
+            if (min != null && value < min.getInternal()) {
+                value = (long) Math.ceil(min.getInternal());
+            }
+            if (max != null && value > max.getInternal()) {
+                value = (long) Math.floor(max.getInternal());
+            }
+            result = new IntegerTag(value);
+        }
+        else {
+            double value = current == null ? 0.0 : (current instanceof NumberTag ? ((NumberTag) current).getInternal()
+                    : NumberTag.getFor(queue.error, current).getInternal());
+            value += change;
+            if (min != null && value < min.getInternal()) {
+                value = min.getInternal();
+            }
+            if (max != null && value > max.getInternal()) {
+                value = max.getInternal();
+            }
+            result = isWhole(value) ? new IntegerTag((long) value) : new NumberTag(value);
+        }
+        gen.getInternal().put("value", result);
+        if (tt != null) {
+            gen.getInternal().put("duration", tt);
+        }
+        return gen;
+    }
 }
@@ -5,17 +5,24 @@ import com.denizenscript.denizen2core.commands.CommandEntry;
 import com.denizenscript.denizen2core.commands.CommandQueue;
 import com.denizenscript.denizen2core.tags.AbstractTagObject;
 import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.ListTag;
 import com.denizenscript.denizen2core.tags.objects.MapTag;
 import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
 import com.denizenscript.denizen2sponge.tags.objects.EntityTag;
 import com.denizenscript.denizen2sponge.tags.objects.EntityTypeTag;
 import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
+import com.denizenscript.denizen2sponge.tags.objects.PointListTag;
 import com.denizenscript.denizen2sponge.utilities.DataKeys;
 import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.flowpowered.math.vector.Vector3d;
 import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.world.World;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class SpawnCommand extends AbstractCommand {
@@ -23,16 +30,17 @@ public class SpawnCommand extends AbstractCommand {
     // <--[command]
     // @Since 0.3.0
     // @Name spawn
-    // @Arguments <entity type> <location> [map of properties]
-    // @Short spawns a new entity.
-    // @Updated 2017/10/18
+    // @Arguments <entity type> <list of locations> [map of properties]
+    // @Short spawns new entities.
+    // @Updated 2018/03/10
     // @Group Entity
     // @Minimum 2
     // @Maximum 3
-    // @Tag <[spawn_success]> (BooleanTag) returns whether the spawn passed.
-    // @Tag <[spawn_entity]> (EntityTag) returns the entity that was spawned (only if the spawn passed).
+    // @Tag <[spawn_success]> (BooleanTag) returns whether every spawn passed.
+    // @Tag <[spawn_entity]> (EntityTag) returns the last entity that was spawned (only if any spawn passed).
+    // @Tag <[spawn_entities]> (ListTag) returns all entities that were spawned.
     // @Description
-    // Spawns an entity at the specified location. Optionally, specify a MapTag
+    // Spawns an entity at each of the specified locations. Optionally, specify a MapTag
     // of properties to spawn the entity with those values automatically set on
     // it. The MapTag can also contain a "rotation" key with a LocationTag.
     // Related information: <@link explanation Entity Types>entity types<@/link>.
@@ -40,6 +48,9 @@ public class SpawnCommand extends AbstractCommand {
     // @Example
     // # Spawns a sheep that feels the burn.
     // - spawn sheep <player.location> display_name:<texts.for_input[text:Bahhhb]>|max_health:300|health:300|fire_ticks:999999|is_sheared:true
+    // @Example
+    // # Surrounds the player with a ring of zombies.
+    // - spawn zombie <player.location.circle[6].every[4]>
     // -->
 
     @Override
@@ -49,7 +60,7 @@ public class SpawnCommand extends AbstractCommand {
 
     @Override
     public String getArguments() {
-        return "<entity type> <location> [map of properties]";
+        return "<entity type> <list of locations> [map of properties]";
     }
 
     @Override
@@ -66,20 +77,16 @@ public class SpawnCommand extends AbstractCommand {
     public void execute(CommandQueue queue, CommandEntry entry) {
         EntityTypeTag entityTypeTag = EntityTypeTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
         EntityType entityType = entityTypeTag.getInternal();
-        LocationTag locationTag = LocationTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
-        UtilLocation location = locationTag.getInternal();
-        if (location.world == null) {
-            queue.handleError(entry, "Invalid location with no world in Spawn command!");
-            return;
-        }
-        Entity entity = location.world.createEntity(entityType, location.toVector3d());
+        AbstractTagObject locsObj = entry.getArgumentObject(queue, 1);
         MapTag propertyMap = new MapTag();
+        LocationTag rotation = null;
+        Map<Key, AbstractTagObject> properties = new LinkedHashMap<>();
         if (entry.arguments.size() > 2) {
+            // The properties are only checked once, however many entities are spawned.
             propertyMap = MapTag.getFor(queue.error, entry.getArgumentObject(queue, 2));
             for (Map.Entry<String, AbstractTagObject> mapEntry : propertyMap.getInternal().entrySet()) {
                 if (mapEntry.getKey().equalsIgnoreCase("rotation")) {
-                    LocationTag rot = LocationTag.getFor(queue.error, mapEntry.getValue());
-                    entity.setRotation(rot.getInternal().toVector3d());
+                    rotation = LocationTag.getFor(queue.error, mapEntry.getValue());
                 }
                 else {
                     Key found = DataKeys.getKeyForName(mapEntry.getKey());
@@ -87,24 +94,94 @@ public class SpawnCommand extends AbstractCommand {
                         queue.handleError(entry, "Invalid property '" + mapEntry.getKey() + "' in Spawn command!");
                         return;
                     }
-                    DataKeys.tryApply(entity, found, mapEntry.getValue(), queue.error);
+                    properties.put(found, mapEntry.getValue());
                 }
             }
         }
-        if (queue.shouldShowGood()) {
-                queue.outGood("Spawning an entity of type " + ColorSet.emphasis + entityType.getId()
-                        + ColorSet.good + " with the following properties: " + ColorSet.emphasis
-                        + propertyMap.debug() + ColorSet.good + " at location " + ColorSet.emphasis
-                        + locationTag.debug() + ColorSet.good + "...");
+        String locsDebug;
+        int count = 0;
+        boolean passed = true;
+        Entity last = null;
+        ListTag spawned = new ListTag();
+        if (locsObj instanceof PointListTag) {
+            PointListTag points = (PointListTag) locsObj;
+            if (points.getWorld() == null) {
+                queue.handleError(entry, "Invalid location with no world in Spawn command!");
+                return;
+            }
+            locsDebug = points.size() + " location(s)";
+            if (queue.shouldShowGood()) {
+                queue.outGood(spawningDebug(entityType, propertyMap, locsDebug));
+            }
+            double[] point = new double[3];
+            for (int i = 0; i < points.size(); i++) {
+                points.getPoint(i, point);
+                Entity entity = spawn(points.getWorld(), entityType, new Vector3d(point[0], point[1], point[2]), rotation, properties, queue);
+                count++;
+                if (entity == null) {
+                    passed = false;
+                }
+                else {
+                    last = entity;
+                    spawned.getInternal().add(new EntityTag(entity));
+                }
+            }
+        }
+        else {
+            ListTag locs = ListTag.getFor(queue.error, locsObj);
+            List<UtilLocation> locations = new ArrayList<>(locs.getInternal().size());
+            for (AbstractTagObject ato : locs.getInternal()) {
+                UtilLocation location = LocationTag.getFor(queue.error, ato).getInternal();
+                if (location.world == null) {
+                    queue.handleError(entry, "Invalid location with no world in Spawn command!");
+                    return;
+                }
+                locations.add(location);
+            }
+            locsDebug = "location(s) " + ColorSet.emphasis + locs.debug();
+            if (queue.shouldShowGood()) {
+                queue.outGood(spawningDebug(entityType, propertyMap, locsDebug));
+            }
+            for (UtilLocation location : locations) {
+                Entity entity = spawn(location.world, entityType, location.toVector3d(), rotation, properties, queue);
+                count++;
+                if (entity == null) {
+                    passed = false;
+                }
+                else {
+                    last = entity;
+                    spawned.getInternal().add(new EntityTag(entity));
+                }
+            }
         }
-        boolean passed = location.world.spawnEntity(entity);
         // TODO: "Cause" argument!
         if (queue.shouldShowGood()) {
-            queue.outGood("Spawning " + (passed ? "succeeded" : "was blocked") + "!");
+            queue.outGood("Spawning " + (passed ? "succeeded" : "was blocked for " + (count - spawned.getInternal().size()) + " of " + count + " entities") + "!");
         }
         queue.commandStack.peek().setDefinition("spawn_success", new BooleanTag(passed));
-        if (passed) {
-            queue.commandStack.peek().setDefinition("spawn_entity", new EntityTag(entity));
+        queue.commandStack.peek().setDefinition("spawn_entities", spawned);
+        if (last != null) {
+            queue.commandStack.peek().setDefinition("spawn_entity", new EntityTag(last));
+        }
+    }
+
+    private static String spawningDebug(EntityType entityType, MapTag propertyMap, String locsDebug) {
+        return "Spawning an entity of type " + ColorSet.emphasis + entityType.getId()
+                + ColorSet.good + " with the following properties: " + ColorSet.emphasis
+                + propertyMap.debug() + ColorSet.good + " at " + ColorSet.emphasis
+                + locsDebug + ColorSet.good + "...";
+    }
+
+    // Spawns a single entity, returning it, or null if the spawn was blocked.
+    private static Entity spawn(World world, EntityType entityType, Vector3d position, LocationTag rotation,
+                                Map<Key, AbstractTagObject> properties, CommandQueue queue) {
+        Entity entity = world.createEntity(entityType, position);
+        if (rotation != null) {
+            entity.setRotation(rotation.getInternal().toVector3d());
+        }
+        for (Map.Entry<Key, AbstractTagObject> property : properties.entrySet()) {
+            DataKeys.tryApply(entity, property.getKey(), property.getValue(), queue.error);
         }
+        return world.spawnEntity(entity) ? entity : null;
     }
 }
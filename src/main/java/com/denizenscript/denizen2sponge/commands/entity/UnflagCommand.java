@@ -10,6 +10,7 @@ import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
 import com.denizenscript.denizen2sponge.Denizen2Sponge;
 import com.denizenscript.denizen2sponge.tags.objects.EntityTag;
+import com.denizenscript.denizen2sponge.utilities.flags.EntityFlagIndex;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagHelper;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMap;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMapDataImpl;
@@ -61,11 +62,8 @@ public class UnflagCommand extends AbstractCommand {
         ListTag toRemove = ListTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
         Entity entity = null;
         AbstractTagObject ato = entry.getArgumentObject(queue, 0);
-        MapTag basic;
-        if (CoreUtilities.toLowerCase(ato.toString()).equals("server")) {
-            basic = Denizen2Sponge.instance.serverFlagMap;
-        }
-        else {
+        MapTag basic = null;
+        if (!CoreUtilities.toLowerCase(ato.toString()).equals("server")) {
             EntityTag entityTag = EntityTag.getFor(queue.error, ato);
             entity = entityTag.getInternal();
             Optional<FlagMap> fm = entity.get(FlagHelper.FLAGMAP);
@@ -77,7 +75,15 @@ public class UnflagCommand extends AbstractCommand {
             }
         }
         for (AbstractTagObject dat : toRemove.getInternal()) {
-            basic.getInternal().remove(CoreUtilities.toLowerCase(dat.toString()));
+            String flagName = CoreUtilities.toLowerCase(dat.toString());
+            MapTag flags = entity == null ? Denizen2Sponge.instance.serverFlags.getFor(flagName) : basic;
+            flags.getInternal().remove(flagName);
+            if (entity != null) {
+                EntityFlagIndex.remove(entity.getUniqueId(), flagName);
+            }
+            else {
+                Denizen2Sponge.instance.serverFlagChanged(flagName, null);
+            }
         }
         if (entity != null) {
             entity.offer(new FlagMapDataImpl(new FlagMap(basic)));
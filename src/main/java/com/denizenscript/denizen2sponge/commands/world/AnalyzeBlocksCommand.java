@@ -0,0 +1,149 @@
+package com.denizenscript.denizen2sponge.commands.world;
+
+import com.denizenscript.denizen2core.commands.AbstractCommand;
+import com.denizenscript.denizen2core.commands.CommandEntry;
+import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.utilities.CoreUtilities;
+import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2sponge.tags.objects.BlockTypeTag;
+import com.denizenscript.denizen2sponge.tags.objects.CuboidTag;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockAnalysis;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockAnalysisTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockColumnCopy;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockVolumes;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.world.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public class AnalyzeBlocksCommand extends AbstractCommand {
+
+    // <--[command]
+    // @Since 0.4.0
+    // @Name analyzeblocks
+    // @Arguments <cuboid> <mode>
+    // @Short analyzes the blocks in a cuboid in the background.
+    // @Updated 2018/03/10
+    // @Group World
+    // @Minimum 2
+    // @Maximum 2
+    // @Named types (ListTag) Sets the list of block types to count or find.
+    // @Named pattern (MapTag) Sets the pattern to search for, as a map of relative offsets (like 0,1,0) to block types.
+    // @Save analyzeblocks_task (IntegerTag) returns the ID of the block task running the analysis.
+    // @Description
+    // Copies the blocks in a cuboid, then analyzes the copy on a background thread, so large cuboids
+    // can be analyzed without freezing the server. The copy is made a chunk column at a time within the
+    // per-tick block and time budgets set in the config. Blocks changed after their column was copied are not seen.
+    // Modes are:
+    // 'histogram', which gives a MapTag of block type IDs to how many blocks of that type there are,
+    // 'count', which gives the IntegerTag number of blocks of the specified types,
+    // 'find', which gives the list of locations of blocks of the specified types,
+    // and 'pattern', which gives the list of locations where each offset of the specified pattern holds its block type.
+    // Use the <@link tag ServerBaseTag.block_task_done[<IntegerTag>]>block_task_done<@/link> tag to check
+    // whether the analysis has finished, and the <@link tag ServerBaseTag.block_task_result[<IntegerTag>]>block_task_result<@/link>
+    // tag to get its result, which is always available from the tick after the command at the earliest.
+    // @Example
+    // # This example counts the diamond ore in the mine.
+    // - analyzeblocks <[mine]> count --types diamond_ore --save ores
+    // @Example
+    // # This example finds every chest with a hopper below it in the base.
+    // - analyzeblocks <[base]> pattern --pattern 0,0,0:chest|0,-1,0:hopper
+    // -->
+
+    @Override
+    public String getName() {
+        return "analyzeblocks";
+    }
+
+    @Override
+    public String getArguments() {
+        return "<cuboid> <mode>";
+    }
+
+    @Override
+    public int getMinimumArguments() {
+        return 2;
+    }
+
+    @Override
+    public int getMaximumArguments() {
+        return 2;
+    }
+
+    @Override
+    public void execute(CommandQueue queue, CommandEntry entry) {
+        CuboidTag cuboid = CuboidTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
+        String mode = CoreUtilities.toLowerCase(entry.getArgumentObject(queue, 1).toString());
+        World world = cuboid.getInternal().min.world;
+        Function<BlockColumnCopy, AbstractTagObject> query;
+        switch (mode) {
+            case "histogram":
+                query = (copy) -> BlockAnalysis.histogramToMap(BlockAnalysis.histogram(copy));
+                break;
+            case "count":
+            case "find": {
+                if (!entry.namedArgs.containsKey("types")) {
+                    queue.handleError(entry, "The " + mode + " mode requires a 'types' argument!");
+                    return;
+                }
+                Set<BlockType> types = BlockVolumes.parseTypes(queue.error, entry.getNamedArgumentObject(queue, "types"));
+                if (mode.equals("count")) {
+                    query = (copy) -> new IntegerTag(BlockAnalysis.count(copy, types));
+                }
+                else {
+                    query = (copy) -> BlockAnalysis.find(copy, types);
+                }
+                break;
+            }
+            case "pattern": {
+                if (!entry.namedArgs.containsKey("pattern")) {
+                    queue.handleError(entry, "The pattern mode requires a 'pattern' argument!");
+                    return;
+                }
+                MapTag patternMap = MapTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "pattern"));
+                Map<Vector3i, BlockType> pattern = new HashMap<>();
+                for (Map.Entry<String, AbstractTagObject> offset : patternMap.getInternal().entrySet()) {
+                    String[] split = offset.getKey().split(",");
+                    if (split.length != 3) {
+                        queue.handleError(entry, "Invalid pattern offset '" + offset.getKey() + "'!");
+                        return;
+                    }
+                    try {
+                        pattern.put(new Vector3i(Integer.parseInt(split[0].trim()), Integer.parseInt(split[1].trim()), Integer.parseInt(split[2].trim())),
+                                BlockTypeTag.getFor(queue.error, offset.getValue()).getInternal());
+                    }
+                    catch (NumberFormatException ex) {
+                        queue.handleError(entry, "Invalid pattern offset '" + offset.getKey() + "'!");
+                        return;
+                    }
+                }
+                query = (copy) -> BlockAnalysis.match(copy, pattern);
+                break;
+            }
+            default:
+                queue.handleError(entry, "Invalid analysis mode '" + mode + "'!");
+                return;
+        }
+        Vector3i[] bounds = BlockVolumes.clamp(world, cuboid.getBlockMin(), cuboid.getBlockMax());
+        if (bounds == null) {
+            queue.handleError(entry, "The cuboid is entirely outside of its world!");
+            return;
+        }
+        // The copy has to be made on the main thread, the analysis itself doesn't.
+        long id = BlockTaskScheduler.schedule(new BlockAnalysisTask(new BlockColumnCopy(world, bounds[0], bounds[1]), query));
+        if (queue.shouldShowGood()) {
+            queue.outGood("Analyzing cuboid " + ColorSet.emphasis + cuboid.debug() + ColorSet.good
+                    + " in mode " + ColorSet.emphasis + mode + ColorSet.good
+                    + " as block task " + ColorSet.emphasis + id + ColorSet.good + ".");
+        }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "analyzeblocks_task"), new IntegerTag(id));
+    }
+}
@@ -4,14 +4,23 @@ import com.denizenscript.denizen2core.commands.AbstractCommand;
 import com.denizenscript.denizen2core.commands.CommandEntry;
 import com.denizenscript.denizen2core.commands.CommandQueue;
 import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.tags.objects.ListTag;
 import com.denizenscript.denizen2core.tags.objects.MapTag;
 import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2sponge.tags.objects.LocationListTag;
 import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
+import com.denizenscript.denizen2sponge.tags.objects.PointListTag;
 import com.denizenscript.denizen2sponge.utilities.DataKeys;
+import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockEditTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockStateTransformer;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockUndoBuffer;
+import com.flowpowered.math.vector.Vector3i;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.data.key.Key;
-import org.spongepowered.api.world.BlockChangeFlags;
-import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
 import java.util.Map;
@@ -21,17 +30,29 @@ public class EditBlockCommand extends AbstractCommand {
     // <--[command]
     // @Since 0.3.0
     // @Name editblock
-    // @Arguments <location> <map of properties>
-    // @Short Edits a block.
-    // @Updated 2016/09/29
+    // @Arguments <list of locations> <map of properties>
+    // @Short Edits blocks.
+    // @Updated 2018/03/10
     // @Group World
     // @Minimum 2
     // @Maximum 2
+    // @Named snapshot (TextTag) Sets the name of a snapshot to record the replaced blocks into, for use with the <@link command undo>undo command<@/link>.
+    // @Named wait (BooleanTag) Sets whether all blocks are edited before the command finishes.
+    // @Save editblock_task (IntegerTag) returns the ID of the block task making the changes.
     // @Description
-    // Edits a location in a world to have the specified map of new properties.
+    // Edits the blocks at a list of locations to have the specified map of new properties.
+    // Each distinct block state is only worked out once, so editing many similar blocks is cheap.
+    // Blocks that do not have one of the properties are edited without it, and an error is only
+    // given for a property that none of the blocks have.
+    // Changes are applied like those of the <@link command setblock>setblock command<@/link>:
+    // by default every block is edited before the command finishes, and with wait set to false
+    // large edits continue over as many ticks as needed.
     // @Example
     // # Edits a wool block to be blue.
     // - editblock <player.location> dye_color:blue
+    // @Example
+    // # Turns all logs in the area on their sides.
+    // - editblock <[area].block_locations[log|log2]> axis:x
     // -->
 
     @Override
@@ -41,7 +62,7 @@ public class EditBlockCommand extends AbstractCommand {
 
     @Override
     public String getArguments() {
-        return "<location> <map of properties>";
+        return "<list of locations> <map of properties>";
     }
 
     @Override
@@ -56,22 +77,63 @@ public class EditBlockCommand extends AbstractCommand {
 
     @Override
     public void execute(CommandQueue queue, CommandEntry entry) {
-        LocationTag locationTag = LocationTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
-        Location<World> loc = locationTag.getInternal().toLocation();
-        BlockState bs = loc.getBlock();
+        AbstractTagObject locsObj = entry.getArgumentObject(queue, 0);
         MapTag propertyMap = MapTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
+        BlockStateTransformer transformer = new BlockStateTransformer(queue.error);
         for (Map.Entry<String, AbstractTagObject> mapEntry : propertyMap.getInternal().entrySet()) {
             Key found = DataKeys.getKeyForName(mapEntry.getKey());
             if (found == null) {
                 queue.handleError(entry, "Invalid property '" + mapEntry.getKey() + "' in EditBlock command!");
                 return;
             }
-            bs = (BlockState) DataKeys.with(bs, found, mapEntry.getValue(), queue.error);
+            transformer.add(found, mapEntry.getValue());
+        }
+        BlockEditTask edit = new BlockEditTask(false);
+        if (entry.namedArgs.containsKey("snapshot")) {
+            edit.undo = BlockUndoBuffer.getOrCreate(entry.getNamedArgumentObject(queue, "snapshot").toString());
+        }
+        String locsDebug;
+        if (locsObj instanceof PointListTag) {
+            locsObj = ((PointListTag) locsObj).toBlockList();
+        }
+        if (locsObj instanceof LocationListTag) {
+            LocationListTag locs = (LocationListTag) locsObj;
+            World world = locs.getWorld();
+            int size = locs.size();
+            for (int i = 0; i < size; i++) {
+                edit(edit, transformer, world, locs.getX(i), locs.getY(i), locs.getZ(i));
+            }
+            locsDebug = size + " location(s)";
         }
-        loc.setBlock(bs, BlockChangeFlags.NONE);
+        else {
+            ListTag locs = ListTag.getFor(queue.error, locsObj);
+            for (AbstractTagObject ato : locs.getInternal()) {
+                UtilLocation loc = LocationTag.getFor(queue.error, ato).getInternal();
+                Vector3i pos = loc.toVector3i();
+                edit(edit, transformer, loc.world, pos.getX(), pos.getY(), pos.getZ());
+            }
+            locsDebug = "location(s) " + ColorSet.emphasis + locs.debug();
+        }
+        transformer.reportUnsupported();
+        boolean wait = true;
+        if (entry.namedArgs.containsKey("wait")) {
+            wait = BooleanTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "wait")).getInternal();
+        }
+        long id = wait ? BlockTaskScheduler.runNow(edit) : BlockTaskScheduler.run(edit);
         if (queue.shouldShowGood()) {
-            queue.outGood("Edited the location " + ColorSet.emphasis + locationTag.debug() + ColorSet.good
-                    + " to have the new following properties: " + propertyMap.debug());
+            queue.outGood("Edited " + ColorSet.emphasis + locsDebug + ColorSet.good
+                    + " to have the new following properties: " + propertyMap.debug()
+                    + (BlockTaskScheduler.isFinished(id) ? "" : ColorSet.good + ", continuing as block task " + ColorSet.emphasis + id));
+        }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "editblock_task"), new IntegerTag(id));
+    }
+
+    private static void edit(BlockEditTask edit, BlockStateTransformer transformer, World world, int x, int y, int z) {
+        BlockState current = world.getBlock(x, y, z);
+        BlockState result = transformer.apply(current);
+        // Blocks the properties don't change are left alone entirely.
+        if (result != current) {
+            edit.add(world, x, y, z, result);
         }
     }
 }
@@ -0,0 +1,98 @@
+package com.denizenscript.denizen2sponge.commands.world;
+
+import com.denizenscript.denizen2core.commands.AbstractCommand;
+import com.denizenscript.denizen2core.commands.CommandEntry;
+import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2sponge.tags.objects.BlockTypeTag;
+import com.denizenscript.denizen2sponge.tags.objects.CuboidTag;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockFillTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockUndoBuffer;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockVolumes;
+import org.spongepowered.api.block.BlockType;
+
+import java.util.Set;
+
+public class FillCommand extends AbstractCommand {
+
+    // <--[command]
+    // @Since 0.4.0
+    // @Name fill
+    // @Arguments <cuboid> <blocktype>
+    // @Short fills a cuboid with a block type.
+    // @Updated 2018/03/10
+    // @Group World
+    // @Minimum 2
+    // @Maximum 2
+    // @Named replace (ListTag) Sets the list of block types to replace, leaving all other blocks unchanged.
+    // @Named physics (BooleanTag) Sets whether the blocks will have physics enabled or not.
+    // @Named snapshot (TextTag) Sets the name of a snapshot to record the replaced blocks into, for use with the <@link command undo>undo command<@/link>.
+    // @Save fill_task (IntegerTag) returns the ID of the block task filling the cuboid.
+    // @Description
+    // Fills a cuboid with the specified block type, or replaces blocks of the specified types within it.
+    // Physics defaults to enabled.
+    // The fill runs within the per-tick block and time budgets set in the config:
+    // small cuboids are filled immediately, while large ones continue over as many ticks as needed.
+    // Use the <@link tag ServerBaseTag.block_task_done[<IntegerTag>]>block_task_done<@/link> tag to check
+    // whether the fill has finished, and the <@link tag ServerBaseTag.block_task_result[<IntegerTag>]>block_task_result<@/link>
+    // tag to get the number of blocks changed.
+    // With physics enabled, a full fill only causes block updates from the faces of the cuboid.
+    // Related information: <@link explanation Block Types>block types<@/link>.
+    // @Example
+    // # This example clears the arena.
+    // - fill <[arena]> air
+    // @Example
+    // # This example turns all water and lava in the arena into stone, without physics.
+    // - fill <[arena]> stone --replace water|lava|flowing_water|flowing_lava --physics false
+    // -->
+
+    @Override
+    public String getName() {
+        return "fill";
+    }
+
+    @Override
+    public String getArguments() {
+        return "<cuboid> <blocktype>";
+    }
+
+    @Override
+    public int getMinimumArguments() {
+        return 2;
+    }
+
+    @Override
+    public int getMaximumArguments() {
+        return 2;
+    }
+
+    @Override
+    public void execute(CommandQueue queue, CommandEntry entry) {
+        CuboidTag cuboid = CuboidTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
+        BlockTypeTag type = BlockTypeTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
+        Set<BlockType> replace = null;
+        if (entry.namedArgs.containsKey("replace")) {
+            replace = BlockVolumes.parseTypes(queue.error, entry.getNamedArgumentObject(queue, "replace"));
+        }
+        boolean phys = true;
+        if (entry.namedArgs.containsKey("physics")) {
+            phys = BooleanTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "physics")).getInternal();
+        }
+        BlockFillTask fill = new BlockFillTask(cuboid.scan(replace), type.getInternal().getDefaultState(), phys);
+        if (entry.namedArgs.containsKey("snapshot")) {
+            fill.undo = BlockUndoBuffer.getOrCreate(entry.getNamedArgumentObject(queue, "snapshot").toString());
+        }
+        long id = BlockTaskScheduler.run(fill);
+        if (queue.shouldShowGood()) {
+            queue.outGood("Filling cuboid " + ColorSet.emphasis + cuboid.debug() + ColorSet.good
+                    + " with type " + ColorSet.emphasis + type.debug() + ColorSet.good
+                    + (replace == null ? "" : " replacing " + ColorSet.emphasis + replace.size() + ColorSet.good + " type(s)")
+                    + " with physics " + ColorSet.emphasis + (phys ? "on" : "off") + ColorSet.good
+                    + (BlockTaskScheduler.isFinished(id) ? "." : ", continuing as block task " + ColorSet.emphasis + id + ColorSet.good + "."));
+        }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "fill_task"), new IntegerTag(id));
+    }
+}
@@ -0,0 +1,80 @@
+package com.denizenscript.denizen2sponge.commands.world;
+
+import com.denizenscript.denizen2core.commands.AbstractCommand;
+import com.denizenscript.denizen2core.commands.CommandEntry;
+import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2sponge.tags.objects.CuboidTag;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockSearchTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockVolumes;
+import org.spongepowered.api.block.BlockType;
+
+import java.util.Set;
+
+public class FindBlocksCommand extends AbstractCommand {
+
+    // <--[command]
+    // @Since 0.4.0
+    // @Name findblocks
+    // @Arguments <cuboid> [list of block types]
+    // @Short searches a cuboid for blocks over multiple ticks.
+    // @Updated 2018/03/09
+    // @Group World
+    // @Minimum 1
+    // @Maximum 2
+    // @Named limit (IntegerTag) Sets the maximum number of blocks to find.
+    // @Save findblocks_task (IntegerTag) returns the ID of the block task running the search.
+    // @Description
+    // Searches a cuboid for blocks of the specified types (or any type if unspecified),
+    // without freezing the server for large cuboids: the search is spread over as many ticks as needed,
+    // sharing the per-tick block budget set in the config with other block tasks.
+    // Use the <@link tag ServerBaseTag.block_task_done[<IntegerTag>]>block_task_done<@/link> tag to check
+    // whether the search has finished, and the <@link tag ServerBaseTag.block_task_result[<IntegerTag>]>block_task_result<@/link>
+    // tag to get the list of locations found.
+    // For small cuboids, use the <@link tag CuboidTag.block_locations[<ListTag>]>block_locations<@/link> tag instead.
+    // @Example
+    // # This example searches the arena for up to 10 chests.
+    // - findblocks <[arena]> chest --limit 10 --save chests
+    // -->
+
+    @Override
+    public String getName() {
+        return "findblocks";
+    }
+
+    @Override
+    public String getArguments() {
+        return "<cuboid> [list of block types]";
+    }
+
+    @Override
+    public int getMinimumArguments() {
+        return 1;
+    }
+
+    @Override
+    public int getMaximumArguments() {
+        return 2;
+    }
+
+    @Override
+    public void execute(CommandQueue queue, CommandEntry entry) {
+        CuboidTag cuboid = CuboidTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
+        Set<BlockType> types = null;
+        if (entry.arguments.size() > 1) {
+            types = BlockVolumes.parseTypes(queue.error, entry.getArgumentObject(queue, 1));
+        }
+        int limit = 0;
+        if (entry.namedArgs.containsKey("limit")) {
+            limit = (int) IntegerTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "limit")).getInternal();
+        }
+        long id = BlockTaskScheduler.schedule(new BlockSearchTask(cuboid.scan(types), limit));
+        if (queue.shouldShowGood()) {
+            queue.outGood("Searching cuboid " + ColorSet.emphasis + cuboid.debug() + ColorSet.good
+                    + " for blocks as block task " + ColorSet.emphasis + id + ColorSet.good + ".");
+        }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "findblocks_task"), new IntegerTag(id));
+    }
+}
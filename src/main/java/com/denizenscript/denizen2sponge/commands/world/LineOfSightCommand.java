@@ -0,0 +1,80 @@
+package com.denizenscript.denizen2sponge.commands.world;
+
+import com.denizenscript.denizen2core.commands.AbstractCommand;
+import com.denizenscript.denizen2core.commands.CommandEntry;
+import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.ListTag;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
+import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.denizenscript.denizen2sponge.utilities.blocks.RayCaster;
+import org.spongepowered.api.world.World;
+
+import java.util.IdentityHashMap;
+
+public class LineOfSightCommand extends AbstractCommand {
+
+    // <--[command]
+    // @Since 0.4.0
+    // @Name lineofsight
+    // @Arguments <list of origins> <list of targets>
+    // @Short checks which targets are in the line of sight of which origins.
+    // @Updated 2018/03/10
+    // @Group World
+    // @Minimum 2
+    // @Maximum 2
+    // @Save lineofsight (MapTag) returns a map of each origin to a map of each target to whether it is in sight.
+    // @Description
+    // Checks the line of sight from every origin location to every target location in one go,
+    // sharing block access between all the checks.
+    // Locations in other worlds, or behind unloaded chunks, are never in the line of sight.
+    // For a single origin, see also the <@link tag LocationTag.lines_of_sight[<ListTag>]>lines_of_sight<@/link> tag.
+    // @Example
+    // # This example checks which of the targets each turret can see.
+    // - lineofsight <[turrets]> <[targets]>
+    // -->
+
+    @Override
+    public String getName() {
+        return "lineofsight";
+    }
+
+    @Override
+    public String getArguments() {
+        return "<list of origins> <list of targets>";
+    }
+
+    @Override
+    public int getMinimumArguments() {
+        return 2;
+    }
+
+    @Override
+    public int getMaximumArguments() {
+        return 2;
+    }
+
+    @Override
+    public void execute(CommandQueue queue, CommandEntry entry) {
+        ListTag origins = ListTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
+        ListTag targets = ListTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
+        IdentityHashMap<World, RayCaster> casters = new IdentityHashMap<>();
+        MapTag result = new MapTag();
+        for (AbstractTagObject ato : origins.getInternal()) {
+            UtilLocation origin = LocationTag.getFor(queue.error, ato).getInternal();
+            if (origin.world == null) {
+                queue.handleError(entry, "Origin location '" + ato.toString() + "' has no world!");
+                return;
+            }
+            RayCaster caster = casters.computeIfAbsent(origin.world, RayCaster::new);
+            result.getInternal().put(ato.toString(), RayCaster.checkAll(caster, origin, targets, queue.error));
+        }
+        if (queue.shouldShowGood()) {
+            queue.outGood("Checked line of sight from " + ColorSet.emphasis + origins.getInternal().size() + ColorSet.good
+                    + " origin(s) to " + ColorSet.emphasis + targets.getInternal().size() + ColorSet.good + " target(s).");
+        }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "lineofsight"), result);
+    }
+}
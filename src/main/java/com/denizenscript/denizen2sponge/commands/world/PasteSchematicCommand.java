@@ -0,0 +1,96 @@
+package com.denizenscript.denizen2sponge.commands.world;
+
+import com.denizenscript.denizen2core.commands.AbstractCommand;
+import com.denizenscript.denizen2core.commands.CommandEntry;
+import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
+import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockUndoBuffer;
+import com.denizenscript.denizen2sponge.utilities.blocks.SchematicPasteTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.Schematics;
+import org.spongepowered.api.world.BlockChangeFlags;
+
+import java.io.File;
+
+public class PasteSchematicCommand extends AbstractCommand {
+
+    // <--[command]
+    // @Since 0.4.0
+    // @Name pasteschematic
+    // @Arguments <name> <location>
+    // @Short pastes a schematic file into the world.
+    // @Updated 2018/03/10
+    // @Group World
+    // @Minimum 2
+    // @Maximum 2
+    // @Named physics (BooleanTag) Sets whether the blocks will have physics enabled or not.
+    // @Named snapshot (TextTag) Sets the name of a snapshot to record the replaced blocks into, for use with the <@link command undo>undo command<@/link>.
+    // @Save pasteschematic_task (IntegerTag) returns the ID of the block task pasting the schematic.
+    // @Description
+    // Pastes a schematic saved by the <@link command saveschematic>saveschematic command<@/link>,
+    // placing its origin at the specified location. Physics defaults to disabled.
+    // The file is read in the background, then the schematic is pasted chunk by chunk within the
+    // per-tick block and time budgets set in the config, over as many ticks as needed.
+    // Use the <@link tag ServerBaseTag.block_task_done[<IntegerTag>]>block_task_done<@/link> tag to check
+    // whether the paste has finished.
+    // @Example
+    // # This example resets the arena from its saved schematic.
+    // - pasteschematic arenas/main <[arena].min>
+    // -->
+
+    @Override
+    public String getName() {
+        return "pasteschematic";
+    }
+
+    @Override
+    public String getArguments() {
+        return "<name> <location>";
+    }
+
+    @Override
+    public int getMinimumArguments() {
+        return 2;
+    }
+
+    @Override
+    public int getMaximumArguments() {
+        return 2;
+    }
+
+    @Override
+    public void execute(CommandQueue queue, CommandEntry entry) {
+        String name = entry.getArgumentObject(queue, 0).toString();
+        File file = Schematics.getFile(name);
+        if (file == null) {
+            queue.handleError(entry, "Invalid schematic name '" + name + "'!");
+            return;
+        }
+        if (!file.exists()) {
+            queue.handleError(entry, "Unknown schematic '" + name + "'!");
+            return;
+        }
+        LocationTag location = LocationTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
+        UtilLocation loc = location.getInternal();
+        boolean phys = false;
+        if (entry.namedArgs.containsKey("physics")) {
+            phys = BooleanTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "physics")).getInternal();
+        }
+        SchematicPasteTask paste = new SchematicPasteTask(Schematics.load(file), loc.world, loc.toVector3i(),
+                phys ? BlockChangeFlags.ALL : BlockChangeFlags.NONE);
+        if (entry.namedArgs.containsKey("snapshot")) {
+            paste.undo = BlockUndoBuffer.getOrCreate(entry.getNamedArgumentObject(queue, "snapshot").toString());
+        }
+        long id = BlockTaskScheduler.schedule(paste);
+        if (queue.shouldShowGood()) {
+            queue.outGood("Pasting schematic " + ColorSet.emphasis + name + ColorSet.good
+                    + " at " + ColorSet.emphasis + location.debug() + ColorSet.good
+                    + " as block task " + ColorSet.emphasis + id + ColorSet.good + ".");
+        }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "pasteschematic_task"), new IntegerTag(id));
+    }
+}
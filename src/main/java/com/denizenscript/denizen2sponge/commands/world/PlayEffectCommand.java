@@ -3,12 +3,18 @@ package com.denizenscript.denizen2sponge.commands.world;
 import com.denizenscript.denizen2core.commands.AbstractCommand;
 import com.denizenscript.denizen2core.commands.CommandEntry;
 import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
 import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.tags.objects.ListTag;
 import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
 import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
+import com.denizenscript.denizen2sponge.tags.objects.PointListTag;
+import com.denizenscript.denizen2sponge.utilities.UtilLocation;
 import com.denizenscript.denizen2sponge.utilities.Utilities;
+import com.flowpowered.math.vector.Vector3d;
 import org.spongepowered.api.effect.particle.ParticleEffect;
 import org.spongepowered.api.effect.particle.ParticleType;
+import org.spongepowered.api.world.World;
 
 public class PlayEffectCommand extends AbstractCommand {
 
@@ -25,9 +31,9 @@ public class PlayEffectCommand extends AbstractCommand {
     // <--[command]
     // @Since 0.3.0
     // @Name playeffect
-    // @Arguments <location> <effect>
+    // @Arguments <list of locations> <effect>
     // @Short plays an effect.
-    // @Updated 2017/04/01
+    // @Updated 2018/03/10
     // @Group World
     // @Minimum 2
     // @Maximum 2
@@ -36,12 +42,17 @@ public class PlayEffectCommand extends AbstractCommand {
     // @Named motion (LocationTag) Sets the motion of the particles.
     // @Named visibility (IntegerTag) Sets the visibility radius of the effect.
     // @Description
-    // Plays an effect at certain location. Optionally specify a particle count, offset, velocity and visibility radius.
+    // Plays an effect at a list of locations. Optionally specify a particle count, offset, velocity and visibility radius.
+    // The effect is only built once, so shapes such as <@link tag LocationTag.circle[<NumberTag>]>circles<@/link>
+    // can be drawn with a single command.
     // Related information: <@link explanation Particle Types>particle types<@/link>.
     // TODO: Explain more!
     // @Example
     // # This example plays the 'heart' effect around the player.
     // - playeffect <player.location> heart --count 50 --offset 1,1,1
+    // @Example
+    // # This example draws a ring of flames around the player.
+    // - playeffect <player.location.circle[3]> flame
     // -->
 
     @Override
@@ -51,7 +62,7 @@ public class PlayEffectCommand extends AbstractCommand {
 
     @Override
     public String getArguments() {
-        return "<location> <effect>";
+        return "<list of locations> <effect>";
     }
 
     @Override
@@ -66,7 +77,7 @@ public class PlayEffectCommand extends AbstractCommand {
 
     @Override
     public void execute(CommandQueue queue, CommandEntry entry) {
-        LocationTag loc = LocationTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
+        AbstractTagObject locsObj = entry.getArgumentObject(queue, 0);
         String effectName = entry.getArgumentObject(queue, 1).toString();
         ParticleEffect.Builder build = ParticleEffect.builder();
         Object type = Utilities.getTypeWithDefaultPrefix(ParticleType.class, effectName);
@@ -88,17 +99,45 @@ public class PlayEffectCommand extends AbstractCommand {
             build.velocity(motion.getInternal().toVector3d());
         }
         // TODO: Only show the particles to a list of target players.
+        int radius = -1;
         if (entry.namedArgs.containsKey("visibility")) {
             IntegerTag visibility = IntegerTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "visibility"));
-            loc.getInternal().world.spawnParticles(build.build(), loc.getInternal().toVector3d(), (int) visibility.getInternal());
+            radius = (int) visibility.getInternal();
+        }
+        ParticleEffect effect = build.build();
+        String locsDebug;
+        if (locsObj instanceof PointListTag) {
+            // Shapes are played straight from their points, without making a location for each.
+            PointListTag points = (PointListTag) locsObj;
+            double[] point = new double[3];
+            int size = points.size();
+            for (int i = 0; i < size; i++) {
+                points.getPoint(i, point);
+                play(points.getWorld(), effect, new Vector3d(point[0], point[1], point[2]), radius);
+            }
+            locsDebug = size + " location(s)";
         }
         else {
-            loc.getInternal().world.spawnParticles(build.build(), loc.getInternal().toVector3d());
+            ListTag locs = ListTag.getFor(queue.error, locsObj);
+            for (AbstractTagObject ato : locs.getInternal()) {
+                UtilLocation loc = LocationTag.getFor(queue.error, ato).getInternal();
+                play(loc.world, effect, loc.toVector3d(), radius);
+            }
+            locsDebug = "location(s) " + ColorSet.emphasis + locs.debug();
         }
         if (queue.shouldShowGood()) {
             queue.outGood("Successfully played the particle effect of type '" +
-                    ColorSet.emphasis + ((ParticleType) type).getId() + ColorSet.good + "' at location " +
-                    ColorSet.emphasis + loc.debug() + ColorSet.good + "!");
+                    ColorSet.emphasis + ((ParticleType) type).getId() + ColorSet.good + "' at " +
+                    ColorSet.emphasis + locsDebug + ColorSet.good + "!");
+        }
+    }
+
+    private static void play(World world, ParticleEffect effect, Vector3d position, int radius) {
+        if (radius >= 0) {
+            world.spawnParticles(effect, position, radius);
+        }
+        else {
+            world.spawnParticles(effect, position);
         }
     }
 }
@@ -0,0 +1,83 @@
+package com.denizenscript.denizen2sponge.commands.world;
+
+import com.denizenscript.denizen2core.commands.AbstractCommand;
+import com.denizenscript.denizen2core.commands.CommandEntry;
+import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+import com.denizenscript.denizen2sponge.tags.objects.CuboidTag;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockVolumes;
+import com.denizenscript.denizen2sponge.utilities.blocks.Schematics;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.world.World;
+
+import java.io.File;
+
+public class SaveSchematicCommand extends AbstractCommand {
+
+    // <--[command]
+    // @Since 0.4.0
+    // @Name saveschematic
+    // @Arguments <cuboid> <name>
+    // @Short saves the blocks in a cuboid to a schematic file.
+    // @Updated 2018/03/10
+    // @Group World
+    // @Minimum 2
+    // @Maximum 2
+    // @Description
+    // Saves the blocks in a cuboid, including tile entity data such as chest contents and sign text,
+    // to a schematic file in the 'schematics' folder. The file is written in the background.
+    // Names may contain letters, numbers, underscores, dashes and slashes (for subfolders).
+    // The schematic's origin is the lowest corner of the cuboid.
+    // Schematics can be pasted with the <@link command pasteschematic>pasteschematic command<@/link>.
+    // @Example
+    // # This example saves the arena for later.
+    // - saveschematic <[arena]> arenas/main
+    // -->
+
+    @Override
+    public String getName() {
+        return "saveschematic";
+    }
+
+    @Override
+    public String getArguments() {
+        return "<cuboid> <name>";
+    }
+
+    @Override
+    public int getMinimumArguments() {
+        return 2;
+    }
+
+    @Override
+    public int getMaximumArguments() {
+        return 2;
+    }
+
+    @Override
+    public void execute(CommandQueue queue, CommandEntry entry) {
+        CuboidTag cuboid = CuboidTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
+        String name = entry.getArgumentObject(queue, 1).toString();
+        File file = Schematics.getFile(name);
+        if (file == null) {
+            queue.handleError(entry, "Invalid schematic name '" + name + "'!");
+            return;
+        }
+        World world = cuboid.getInternal().min.world;
+        Vector3i[] bounds = BlockVolumes.clamp(world, cuboid.getBlockMin(), cuboid.getBlockMax());
+        if (bounds == null) {
+            queue.handleError(entry, "The cuboid is entirely outside of its world!");
+            return;
+        }
+        Schematics.save(world, bounds[0], bounds[1], name, file).exceptionally((ex) -> {
+            Debug.error("Failed to save schematic '" + name + "'!");
+            Debug.exception(ex);
+            return null;
+        });
+        if (queue.shouldShowGood()) {
+            queue.outGood("Saving cuboid " + ColorSet.emphasis + cuboid.debug() + ColorSet.good
+                    + " to schematic " + ColorSet.emphasis + name + ColorSet.good + ".");
+        }
+    }
+}
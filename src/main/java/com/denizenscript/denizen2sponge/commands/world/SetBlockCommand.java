@@ -5,11 +5,19 @@ import com.denizenscript.denizen2core.commands.CommandEntry;
 import com.denizenscript.denizen2core.commands.CommandQueue;
 import com.denizenscript.denizen2core.tags.AbstractTagObject;
 import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
 import com.denizenscript.denizen2core.tags.objects.ListTag;
 import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
 import com.denizenscript.denizen2sponge.tags.objects.BlockTypeTag;
+import com.denizenscript.denizen2sponge.tags.objects.LocationListTag;
 import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
-import org.spongepowered.api.world.BlockChangeFlags;
+import com.denizenscript.denizen2sponge.tags.objects.PointListTag;
+import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockEditTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockUndoBuffer;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockState;
 
 public class SetBlockCommand extends AbstractCommand {
 
@@ -18,13 +26,24 @@ public class SetBlockCommand extends AbstractCommand {
     // @Name setblock
     // @Arguments <list of locations> <blocktype>
     // @Short sets a block's type.
-    // @Updated 2017/04/03
+    // @Updated 2018/03/10
     // @Group World
     // @Minimum 2
     // @Maximum 2
     // @Named physics (BooleanTag) Sets whether the block will have physics enabled or not.
+    // @Named snapshot (TextTag) Sets the name of a snapshot to record the replaced blocks into, for use with the <@link command undo>undo command<@/link>.
+    // @Named wait (BooleanTag) Sets whether all blocks are changed before the command finishes.
+    // @Save setblock_task (IntegerTag) returns the ID of the block task making the changes.
     // @Description
-    // Sets a block's type at the specified location. Physics defaults to enabled.
+    // Sets a block's type at the specified locations. Physics defaults to enabled.
+    // Changes are applied chunk by chunk. By default, every block is changed before the command finishes.
+    // Set wait to false to apply large changes within the per-tick block and time budgets set in the config instead:
+    // small changes still finish immediately, while large ones continue over as many ticks as needed.
+    // Use the <@link tag ServerBaseTag.block_task_done[<IntegerTag>]>block_task_done<@/link> tag to check
+    // whether they have finished.
+    // With physics enabled, only the blocks on the surface of the changed area cause block updates,
+    // once all other blocks have been placed. Blocks whose neighbours are all changed too are placed without physics,
+    // so eg. sand that is entirely surrounded by other changed blocks won't fall.
     // Related information: <@link explanation Block Types>block types<@/link>.
     // TODO: Explain more!
     // @Example
@@ -33,6 +52,15 @@ public class SetBlockCommand extends AbstractCommand {
     // @Example
     // # This example sets the block at a player's location to sand and doesn't update surrounding blocks.
     // - setblock <player.location> sand --physics false
+    // @Example
+    // # This example clears the arena, recording the blocks removed into the snapshot 'arena' so they can be put back later.
+    // - setblock <[arena].block_locations> air --snapshot arena
+    // @Example
+    // # This example fills a large area with stone over several ticks, to avoid lagging the server.
+    // - setblock <[area].block_locations> stone --wait false
+    // @Example
+    // # This example builds a hollow glass sphere around the player.
+    // - setblock <player.location.sphere[8]> glass
     // -->
 
     @Override
@@ -57,22 +85,49 @@ public class SetBlockCommand extends AbstractCommand {
 
     @Override
     public void execute(CommandQueue queue, CommandEntry entry) {
-        ListTag locs = ListTag.getFor(queue.error, entry.getArgumentObject(queue, 0));
+        AbstractTagObject locsObj = entry.getArgumentObject(queue, 0);
         BlockTypeTag type = BlockTypeTag.getFor(queue.error, entry.getArgumentObject(queue, 1));
         boolean phys = true;
         if (entry.namedArgs.containsKey("physics")) {
             phys = BooleanTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "physics")).getInternal();
         }
+        BlockState state = type.getInternal().getDefaultState();
+        BlockEditTask edit = new BlockEditTask(phys);
+        if (entry.namedArgs.containsKey("snapshot")) {
+            edit.undo = BlockUndoBuffer.getOrCreate(entry.getNamedArgumentObject(queue, "snapshot").toString());
+        }
+        String locsDebug;
+        if (locsObj instanceof PointListTag) {
+            // Shapes are added as the blocks their points fall in.
+            locsObj = ((PointListTag) locsObj).toBlockList();
+        }
+        if (locsObj instanceof LocationListTag) {
+            // Packed location lists are added directly from their coordinates.
+            LocationListTag locs = (LocationListTag) locsObj;
+            edit.add(locs, state);
+            locsDebug = locs.size() + " location(s)";
+        }
+        else {
+            ListTag locs = ListTag.getFor(queue.error, locsObj);
+            for (AbstractTagObject ato : locs.getInternal()) {
+                UtilLocation loc = LocationTag.getFor(queue.error, ato).getInternal();
+                Vector3i pos = loc.toVector3i();
+                edit.add(loc.world, pos.getX(), pos.getY(), pos.getZ(), state);
+            }
+            locsDebug = "location(s) " + ColorSet.emphasis + locs.debug();
+        }
+        boolean wait = true;
+        if (entry.namedArgs.containsKey("wait")) {
+            wait = BooleanTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "wait")).getInternal();
+        }
+        long id = wait ? BlockTaskScheduler.runNow(edit) : BlockTaskScheduler.run(edit);
         if (queue.shouldShowGood()) {
-            queue.outGood("Changing location(s) " + ColorSet.emphasis + locs.debug() + ColorSet.good
+            queue.outGood("Changing " + ColorSet.emphasis + locsDebug + ColorSet.good
                     + " to type " + ColorSet.emphasis + type.debug() + ColorSet.good
-                    + " with physics " + ColorSet.emphasis + (phys ? "on" : "off"));
-        }
-        for (AbstractTagObject ato : locs.getInternal()) {
-            LocationTag loc = LocationTag.getFor(queue.error, ato);
-            loc.getInternal().world.setBlockType(loc.getInternal().toVector3i(), type.getInternal(),
-                    phys ? BlockChangeFlags.ALL : BlockChangeFlags.NONE);
+                    + " with physics " + ColorSet.emphasis + (phys ? "on" : "off") + ColorSet.good
+                    + (BlockTaskScheduler.isFinished(id) ? "." : ", continuing as block task " + ColorSet.emphasis + id + ColorSet.good + "."));
         }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "setblock_task"), new IntegerTag(id));
         // TODO: "Cause" argument!
     }
 }
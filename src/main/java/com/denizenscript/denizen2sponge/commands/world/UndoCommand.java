@@ -0,0 +1,83 @@
+package com.denizenscript.denizen2sponge.commands.world;
+
+import com.denizenscript.denizen2core.commands.AbstractCommand;
+import com.denizenscript.denizen2core.commands.CommandEntry;
+import com.denizenscript.denizen2core.commands.CommandQueue;
+import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.utilities.debugging.ColorSet;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockRestoreTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockUndoBuffer;
+import org.spongepowered.api.world.BlockChangeFlags;
+
+public class UndoCommand extends AbstractCommand {
+
+    // <--[command]
+    // @Since 0.4.0
+    // @Name undo
+    // @Arguments <snapshot name>
+    // @Short undoes the block changes recorded into a snapshot.
+    // @Updated 2018/03/10
+    // @Group World
+    // @Minimum 1
+    // @Maximum 1
+    // @Named physics (BooleanTag) Sets whether the blocks will have physics enabled or not.
+    // @Save undo_task (IntegerTag) returns the ID of the block task putting the blocks back.
+    // @Description
+    // Puts back all blocks recorded into the named snapshot by commands such as <@link command setblock>setblock<@/link>
+    // and <@link command fill>fill<@/link>, then forgets the snapshot.
+    // Blocks changed several times are put back as they were before the first change.
+    // Blocks with tile entities, such as chests and signs, get their contents back as well.
+    // To keep the snapshot for later use, use the <@link command restore>restore command<@/link> instead.
+    // Physics defaults to disabled.
+    // Blocks are put back within the per-tick block and time budgets set in the config:
+    // small snapshots are restored immediately, while large ones continue over as many ticks as needed.
+    // Use the <@link tag ServerBaseTag.block_task_done[<IntegerTag>]>block_task_done<@/link> tag to check
+    // whether all blocks have been put back.
+    // @Example
+    // # This example puts the arena back as it was before the game.
+    // - undo arena
+    // -->
+
+    @Override
+    public String getName() {
+        return "undo";
+    }
+
+    @Override
+    public String getArguments() {
+        return "<snapshot name>";
+    }
+
+    @Override
+    public int getMinimumArguments() {
+        return 1;
+    }
+
+    @Override
+    public int getMaximumArguments() {
+        return 1;
+    }
+
+    @Override
+    public void execute(CommandQueue queue, CommandEntry entry) {
+        String name = entry.getArgumentObject(queue, 0).toString();
+        BlockUndoBuffer buffer = BlockUndoBuffer.remove(name);
+        if (buffer == null) {
+            queue.handleError(entry, "Unknown block snapshot '" + name + "'!");
+            return;
+        }
+        boolean phys = false;
+        if (entry.namedArgs.containsKey("physics")) {
+            phys = BooleanTag.getFor(queue.error, entry.getNamedArgumentObject(queue, "physics")).getInternal();
+        }
+        long id = BlockTaskScheduler.run(new BlockRestoreTask(buffer, phys ? BlockChangeFlags.ALL : BlockChangeFlags.NONE, true));
+        if (queue.shouldShowGood()) {
+            queue.outGood("Undoing " + ColorSet.emphasis + buffer.getBlocks() + ColorSet.good
+                    + " block(s) from snapshot " + ColorSet.emphasis + name + ColorSet.good
+                    + (BlockTaskScheduler.isFinished(id) ? "." : ", continuing as block task " + ColorSet.emphasis + id + ColorSet.good + "."));
+        }
+        queue.commandStack.peek().setDefinition(entry.resName(queue, "undo_task"), new IntegerTag(id));
+    }
+}
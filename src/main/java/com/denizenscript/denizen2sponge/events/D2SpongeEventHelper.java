@@ -12,7 +12,6 @@ import com.denizenscript.denizen2sponge.tags.objects.*;
 import com.denizenscript.denizen2sponge.utilities.UtilLocation;
 import com.denizenscript.denizen2sponge.utilities.Utilities;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagHelper;
-import com.denizenscript.denizen2sponge.utilities.flags.FlagMap;
 import org.spongepowered.api.CatalogType;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.block.BlockType;
@@ -214,14 +213,7 @@ public class D2SpongeEventHelper {
             }
             else if (t.equals("flagged")) {
                 boolean poss = false;
-                MapTag flags;
-                Optional<FlagMap> fm = itm.getInternal().get(FlagHelper.FLAGMAP);
-                if (fm.isPresent()) {
-                    flags = fm.get().flags;
-                }
-                else {
-                    flags = new MapTag();
-                }
+                MapTag flags = FlagHelper.getItemFlags(itm.getInternal());
                 for (AbstractTagObject ato_sub : ListTag.getFor(error, v).getInternal()) {
                     if (flags.getInternal().containsKey(CoreUtilities.toLowerCase(ato_sub.toString()))) {
                         poss = true;
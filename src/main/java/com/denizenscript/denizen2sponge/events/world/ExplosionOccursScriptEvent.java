@@ -9,6 +9,7 @@ import com.denizenscript.denizen2core.tags.objects.NumberTag;
 import com.denizenscript.denizen2sponge.Denizen2Sponge;
 import com.denizenscript.denizen2sponge.events.D2SpongeEventHelper;
 import com.denizenscript.denizen2sponge.tags.objects.EntityTag;
+import com.denizenscript.denizen2sponge.tags.objects.LocationListTag;
 import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
 import com.denizenscript.denizen2sponge.utilities.Utilities;
 import org.spongepowered.api.Sponge;
@@ -42,7 +43,7 @@ public class ExplosionOccursScriptEvent extends ScriptEvent {
     // @Switch weather (TextTag) checks the weather.
     //
     // @Context
-    // locations (ListTag<LocationTag>) returns the locations affected by the explosion.
+    // locations (LocationListTag) returns the locations affected by the explosion.
     // entities (ListTag<EntityTag>) returns the entities affected by the explosion.
     // explosion_data (MapTag) returns the data associated with the explosion, such as radius or whether it should cause fire.
     //
@@ -71,7 +72,7 @@ public class ExplosionOccursScriptEvent extends ScriptEvent {
 
     public LocationTag location;
 
-    public ListTag blocks;
+    public AbstractTagObject blocks;
 
     public ListTag entities;
 
@@ -104,9 +105,9 @@ public class ExplosionOccursScriptEvent extends ScriptEvent {
         ExplosionOccursScriptEvent event = (ExplosionOccursScriptEvent) clone();
         event.internal = evt;
         event.location = new LocationTag(evt.getExplosion().getLocation());
-        ListTag locs = new ListTag();
+        LocationListTag locs = new LocationListTag(evt.getTargetWorld(), evt.getAffectedLocations().size());
         for (Location<World> loc : evt.getAffectedLocations()) {
-            locs.getInternal().add(new LocationTag(loc));
+            locs.add(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
         }
         event.blocks = locs;
         ListTag ents = new ListTag();
@@ -130,11 +131,20 @@ public class ExplosionOccursScriptEvent extends ScriptEvent {
     @Override
     public void applyDetermination(boolean errors, String determination, AbstractTagObject value) {
         if (determination.equals("blocks")) {
-            ListTag lt = ListTag.getFor(this::error, value);
-            blocks = lt;
             ArrayList<Location<World>> locs = new ArrayList<>();
-            for (AbstractTagObject loc : lt.getInternal()) {
-                locs.add(LocationTag.getFor(this::error, loc).getInternal().toLocation());
+            if (value instanceof LocationListTag) {
+                LocationListTag llt = (LocationListTag) value;
+                for (int i = 0; i < llt.size(); i++) {
+                    locs.add(new Location<>(llt.getWorld(), llt.getX(i), llt.getY(i), llt.getZ(i)));
+                }
+                blocks = llt;
+            }
+            else {
+                ListTag lt = ListTag.getFor(this::error, value);
+                for (AbstractTagObject loc : lt.getInternal()) {
+                    locs.add(LocationTag.getFor(this::error, loc).getInternal().toLocation());
+                }
+                blocks = lt;
             }
             internal.getAffectedLocations().clear();
             internal.getAffectedLocations().addAll(locs);
@@ -4,21 +4,30 @@ import com.denizenscript.denizen2core.tags.AbstractTagBase;
 import com.denizenscript.denizen2core.tags.AbstractTagObject;
 import com.denizenscript.denizen2core.tags.TagData;
 import com.denizenscript.denizen2core.tags.objects.*;
+import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.Function2;
 import com.denizenscript.denizen2sponge.Denizen2Sponge;
 import com.denizenscript.denizen2sponge.tags.objects.*;
 import com.denizenscript.denizen2sponge.utilities.BossBars;
+import com.denizenscript.denizen2sponge.utilities.PlayerIndex;
 import com.denizenscript.denizen2sponge.utilities.Utilities;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTask;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockTaskScheduler;
+import com.denizenscript.denizen2sponge.utilities.flags.EntityFlagIndex;
+import com.denizenscript.denizen2sponge.utilities.flags.ServerFlags;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.advancement.Advancement;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.boss.ServerBossBar;
+import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.world.World;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class ServerTagBase extends AbstractTagBase {
 
@@ -69,6 +78,71 @@ public class ServerTagBase extends AbstractTagBase {
             return list;
         });
         // <--[tag]
+        // @Since 0.4.0
+        // @Name ServerBaseTag.match_player[<TextTag>]
+        // @Updated 2018/03/05
+        // @Group Server Information
+        // @ReturnType PlayerTag
+        // @Returns the online player whose name matches the input, or otherwise the one with the shortest name starting with it.
+        // -->
+        handlers.put("match_player", (dat, obj) -> {
+            String name = dat.getNextModifier().toString();
+            Player player = PlayerIndex.match(name);
+            if (player == null) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("No online player matches the name '" + name + "'!");
+                }
+                return new NullTag();
+            }
+            return new PlayerTag(player);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name ServerBaseTag.block_task_done[<IntegerTag>]
+        // @Updated 2018/03/09
+        // @Group Server Information
+        // @ReturnType BooleanTag
+        // @Returns whether the block task with the specified ID (as saved by commands like findblocks) has finished.
+        // -->
+        handlers.put("block_task_done", (dat, obj) -> new BooleanTag(BlockTaskScheduler.isFinished(
+                IntegerTag.getFor(dat.error, dat.getNextModifier()).getInternal())));
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name ServerBaseTag.block_task_progress[<IntegerTag>]
+        // @Updated 2018/03/09
+        // @Group Server Information
+        // @ReturnType NumberTag
+        // @Returns how far along the block task with the specified ID is, from 0 to 1.
+        // -->
+        handlers.put("block_task_progress", (dat, obj) -> {
+            BlockTask task = BlockTaskScheduler.getTask(IntegerTag.getFor(dat.error, dat.getNextModifier()).getInternal());
+            if (task == null) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("Unknown block task ID specified!");
+                }
+                return new NullTag();
+            }
+            return new NumberTag(task.getProgress());
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name ServerBaseTag.block_task_result[<IntegerTag>]
+        // @Updated 2018/03/09
+        // @Group Server Information
+        // @ReturnType Dynamic
+        // @Returns the result of the finished block task with the specified ID, such as the list of locations found by findblocks.
+        // -->
+        handlers.put("block_task_result", (dat, obj) -> {
+            long id = IntegerTag.getFor(dat.error, dat.getNextModifier()).getInternal();
+            if (!BlockTaskScheduler.isFinished(id)) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("Block task is unknown or not finished yet!");
+                }
+                return new NullTag();
+            }
+            return BlockTaskScheduler.getTask(id).getResult();
+        });
+        // <--[tag]
         // @Since 0.3.0
         // @Name ServerBaseTag.tps
         // @Updated 2017/04/04
@@ -180,7 +254,7 @@ public class ServerTagBase extends AbstractTagBase {
         // -->
         handlers.put("has_flag", (dat, obj) -> {
             String flagName = CoreUtilities.toLowerCase(dat.getNextModifier().toString());
-            MapTag flags = Denizen2Sponge.instance.serverFlagMap;
+            MapTag flags = Denizen2Sponge.instance.serverFlags.getFor(flagName);
             return new BooleanTag(Utilities.flagIsValidAndNotExpired(dat.error, flags, flagName));
         });
         // <--[tag]
@@ -190,14 +264,14 @@ public class ServerTagBase extends AbstractTagBase {
         // @Group Flag Data
         // @ReturnType ListTag
         // @Returns the list of invalid (expired) flags on the server.
+        // Only includes namespaced flags from partitions that are currently loaded.
         // -->
         handlers.put("dead_flags", (dat, obj) -> {
-            MapTag flags = Denizen2Sponge.instance.serverFlagMap;
+            ServerFlags serverFlags = Denizen2Sponge.instance.serverFlags;
             ListTag invalid = new ListTag();
-            for (Map.Entry<String, AbstractTagObject> flag : flags.getInternal().entrySet()) {
-                if (!Utilities.flagIsValidAndNotExpired(dat.error, flags, flag.getKey())) {
-                    invalid.getInternal().add(new TextTag(flag.getKey()));
-                }
+            addDeadFlags(dat.error, serverFlags.main, invalid);
+            for (String partition : serverFlags.getLoadedPartitions()) {
+                addDeadFlags(dat.error, serverFlags.getPartition(partition), invalid);
             }
             return invalid;
         });
@@ -209,20 +283,15 @@ public class ServerTagBase extends AbstractTagBase {
         // @ReturnType Dynamic
         // @Returns the flag of the specified key from the entity. May become TextTag regardless of input original type.
         // Optionally don't specify anything to get the entire flag map.
+        // The entire flag map only includes flags without a namespace: flags whose names contain a dot are left out,
+        // see <@link tag ServerBaseTag.flag_partition[<TextTag>]>flag_partition<@/link> to get those.
         // -->
         handlers.put("flag", (dat, obj) -> {
-            MapTag flags = Denizen2Sponge.instance.serverFlagMap;
             if (!dat.hasNextModifier()) {
-                MapTag valid = new MapTag();
-                for (Map.Entry<String, AbstractTagObject> flag : flags.getInternal().entrySet()) {
-                    if (Utilities.flagIsValidAndNotExpired(dat.error, flags, flag.getKey())) {
-                        MapTag mt = MapTag.getFor(dat.error, flag.getKey());
-                        valid.getInternal().put(flag.getKey(), mt.getInternal().get("value"));
-                    }
-                }
-                return valid;
+                return validFlags(dat.error, Denizen2Sponge.instance.serverFlags.main);
             }
             String flagName = CoreUtilities.toLowerCase(dat.getNextModifier().toString());
+            MapTag flags = Denizen2Sponge.instance.serverFlags.getFor(flagName);
             if (!Utilities.flagIsValidAndNotExpired(dat.error, flags, flagName)) {
                 if (!dat.hasFallback()) {
                     dat.error.run("Invalid flag specified, not present on the server!");
@@ -240,6 +309,54 @@ public class ServerTagBase extends AbstractTagBase {
         });
         // <--[tag]
         // @Since 0.4.0
+        // @Name ServerBaseTag.flag_partition[<TextTag>]
+        // @Updated 2018/03/04
+        // @Group Flag Data
+        // @ReturnType MapTag
+        // @Returns the map of all valid flags in the specified namespace, such as 'quests' for flags named like 'quests.progress'.
+        // -->
+        handlers.put("flag_partition", (dat, obj) -> {
+            String partition = CoreUtilities.toLowerCase(dat.getNextModifier().toString());
+            if (ServerFlags.getPartitionName(partition + ".") == null) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("Invalid flag namespace specified: '" + partition + "'!");
+                }
+                return new NullTag();
+            }
+            return validFlags(dat.error, Denizen2Sponge.instance.serverFlags.getPartition(partition));
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name ServerBaseTag.entities_flagged[<TextTag>]
+        // @Updated 2018/03/01
+        // @Group Flag Data
+        // @ReturnType ListTag<EntityTag>
+        // @Returns a list of all loaded entities that have a flag with the specified key (And it is not expired).
+        // -->
+        handlers.put("entities_flagged", (dat, obj) -> {
+            String flagName = CoreUtilities.toLowerCase(dat.getNextModifier().toString());
+            return entityList(EntityFlagIndex.getFlagged(flagName));
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name ServerBaseTag.entities_flagged_as[<MapTag>]
+        // @Updated 2018/03/01
+        // @Group Flag Data
+        // @ReturnType ListTag<EntityTag>
+        // @Returns a list of all loaded entities that have a flag with the specified key and value (And it is not expired).
+        // Input is flag:<TextTag>|value:<TextTag>
+        // -->
+        handlers.put("entities_flagged_as", (dat, obj) -> {
+            MapTag map = MapTag.getFor(dat.error, dat.getNextModifier());
+            if (!map.getInternal().containsKey("flag") || !map.getInternal().containsKey("value")) {
+                dat.error.run("Both a flag and a value must be specified!");
+                return new NullTag();
+            }
+            String flagName = CoreUtilities.toLowerCase(map.getInternal().get("flag").toString());
+            return entityList(EntityFlagIndex.getFlagged(flagName, map.getInternal().get("value").toString()));
+        });
+        // <--[tag]
+        // @Since 0.4.0
         // @Name ServerBaseTag.current_bossbars
         // @Updated 2018/01/30
         // @Group BossBar Data
@@ -307,6 +424,36 @@ public class ServerTagBase extends AbstractTagBase {
         });
     }
 
+    private static MapTag validFlags(Action<String> error, MapTag flags) {
+        MapTag valid = new MapTag();
+        for (Map.Entry<String, AbstractTagObject> flag : flags.getInternal().entrySet()) {
+            if (Utilities.flagIsValidAndNotExpired(error, flags, flag.getKey())) {
+                MapTag mt = MapTag.getFor(error, flag.getValue());
+                valid.getInternal().put(flag.getKey(), mt.getInternal().get("value"));
+            }
+        }
+        return valid;
+    }
+
+    private static void addDeadFlags(Action<String> error, MapTag flags, ListTag invalid) {
+        for (Map.Entry<String, AbstractTagObject> flag : flags.getInternal().entrySet()) {
+            if (!Utilities.flagIsValidAndNotExpired(error, flags, flag.getKey())) {
+                invalid.getInternal().add(new TextTag(flag.getKey()));
+            }
+        }
+    }
+
+    private static ListTag entityList(List<UUID> ids) {
+        ListTag list = new ListTag();
+        for (UUID id : ids) {
+            Entity entity = EntityTag.findEntity(id);
+            if (entity != null) {
+                list.getInternal().add(new EntityTag(entity));
+            }
+        }
+        return list;
+    }
+
     @Override
     public AbstractTagObject handle(TagData data) {
         return new ServerTagBase.ServerBaseTag().handle(data.shrink());
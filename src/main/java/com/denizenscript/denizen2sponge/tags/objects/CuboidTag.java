@@ -2,23 +2,24 @@ package com.denizenscript.denizen2sponge.tags.objects;
 
 import com.denizenscript.denizen2core.tags.AbstractTagObject;
 import com.denizenscript.denizen2core.tags.TagData;
-import com.denizenscript.denizen2core.tags.objects.BooleanTag;
-import com.denizenscript.denizen2core.tags.objects.ListTag;
-import com.denizenscript.denizen2core.tags.objects.NumberTag;
-import com.denizenscript.denizen2core.tags.objects.TextTag;
+import com.denizenscript.denizen2core.tags.objects.*;
 import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.Function2;
+import com.denizenscript.denizen2sponge.utilities.ParseCache;
+import com.denizenscript.denizen2sponge.utilities.Shapes;
 import com.denizenscript.denizen2sponge.utilities.UtilCuboid;
 import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockAnalysis;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockScan;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockVolumes;
+import com.denizenscript.denizen2sponge.utilities.blocks.HeightmapCache;
+import com.flowpowered.math.vector.Vector3i;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.util.AABB;
-import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.*;
 
 public class CuboidTag extends AbstractTagObject {
 
@@ -46,6 +47,42 @@ public class CuboidTag extends AbstractTagObject {
         return internal;
     }
 
+    // The first and last block positions in the cuboid, counting partially covered blocks.
+    public Vector3i getBlockMin() {
+        return new Vector3i(Math.floor(internal.min.x), Math.floor(internal.min.y), Math.floor(internal.min.z));
+    }
+
+    public Vector3i getBlockMax() {
+        return new Vector3i(Math.ceil(internal.max.x + 0.01) - 1, Math.ceil(internal.max.y + 0.01) - 1, Math.ceil(internal.max.z + 0.01) - 1);
+    }
+
+    public BlockScan scan(Set<BlockType> types) {
+        return new BlockScan(internal.min.world, getBlockMin(), getBlockMax(), types);
+    }
+
+    public static Set<BlockType> getBlockTypes(TagData dat) {
+        if (!dat.hasNextModifier()) {
+            return null;
+        }
+        return BlockVolumes.parseTypes(dat.error, dat.getNextModifier());
+    }
+
+    public LocationListTag getSurfaceLocations(boolean safeOnly) {
+        World world = internal.min.world;
+        Vector3i min = getBlockMin();
+        Vector3i max = getBlockMax();
+        LocationListTag result = new LocationListTag(world);
+        for (int x = min.getX(); x <= max.getX(); x++) {
+            for (int z = min.getZ(); z <= max.getZ(); z++) {
+                int y = HeightmapCache.getHighestY(world, x, z);
+                if (y >= min.getY() && y <= max.getY() && (!safeOnly || HeightmapCache.isSafe(world, x, z))) {
+                    result.add(x, y, z);
+                }
+            }
+        }
+        return result;
+    }
+
     public boolean contains(UtilLocation point) {
         return point.x >= internal.min.x && point.y >= internal.min.y && point.z >= internal.min.z
                 && point.x <= internal.max.x && point.y <= internal.max.y && point.z <= internal.max.z;
@@ -57,38 +94,103 @@ public class CuboidTag extends AbstractTagObject {
         // <--[tag]
         // @Since 0.3.0
         // @Name CuboidTag.block_locations[<ListTag>]
-        // @Updated 2016/11/24
+        // @Updated 2018/03/09
         // @Group Connected Information
-        // @ReturnType ListTag<LocationTag>
+        // @ReturnType LocationListTag
         // @Returns the location of all block locations in this cuboid. Optionally, specify a list of BlockType's to use.
+        // The search is lazy, so eg. '.block_locations[chest].limit[5]' stops once 5 chests are found.
         // @Note Partially covered blocks are counted.
         // -->
-        handlers.put("block_locations", (dat, obj) -> {
-            List<BlockType> valids = null;
-            if (dat.hasNextModifier()) {
-                AbstractTagObject mod = dat.getNextModifier();
-                valids = new ArrayList<>();
-                for (AbstractTagObject ato : ListTag.getFor(dat.error, mod).getInternal()) {
-                    BlockTypeTag btt = BlockTypeTag.getFor(dat.error, ato);
-                    valids.add(btt.getInternal());
-                }
+        handlers.put("block_locations", (dat, obj) -> new LocationListTag(((CuboidTag) obj).scan(getBlockTypes(dat))));
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name CuboidTag.count_blocks[<ListTag>]
+        // @Updated 2018/03/09
+        // @Group Connected Information
+        // @ReturnType IntegerTag
+        // @Returns the number of blocks in this cuboid. Optionally, specify a list of BlockType's to count.
+        // @Note Partially covered blocks are counted.
+        // -->
+        handlers.put("count_blocks", (dat, obj) -> {
+            BlockScan scan = ((CuboidTag) obj).scan(getBlockTypes(dat));
+            long count = 0;
+            while (scan.next()) {
+                count++;
             }
+            return new IntegerTag(count);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name CuboidTag.block_histogram[<ListTag>]
+        // @Updated 2018/03/10
+        // @Group Connected Information
+        // @ReturnType MapTag
+        // @Returns a map of block type IDs to how many blocks of that type are in this cuboid, counted in a single pass.
+        // Optionally, specify a list of BlockType's to count, which are then all included even if none are found.
+        // For very large cuboids, consider the <@link command analyzeblocks>analyzeblocks command<@/link> instead.
+        // @Note Partially covered blocks are counted.
+        // -->
+        handlers.put("block_histogram", (dat, obj) -> {
+            CuboidTag ct = (CuboidTag) obj;
+            return BlockAnalysis.histogramToMap(BlockAnalysis.histogram(ct.internal.min.world,
+                    ct.getBlockMin(), ct.getBlockMax(), getBlockTypes(dat)));
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name CuboidTag.first_block[<ListTag>]
+        // @Updated 2018/03/09
+        // @Group Connected Information
+        // @ReturnType LocationTag
+        // @Returns the first block location found in this cuboid. Optionally, specify a list of BlockType's to search for.
+        // @Note Partially covered blocks are counted.
+        // -->
+        handlers.put("first_block", (dat, obj) -> {
             CuboidTag ct = (CuboidTag) obj;
-            ListTag lt = new ListTag();
-            int maxx = (int) Math.ceil(ct.internal.max.x + 0.01);
-            int maxy = (int) Math.ceil(ct.internal.max.y + 0.01);
-            int maxz = (int) Math.ceil(ct.internal.max.z + 0.01);
-            for (int x = (int) Math.floor(ct.internal.min.x); x < maxx; x++) {
-                for (int y = (int) Math.floor(ct.internal.min.y); y < maxy; y++) {
-                    for (int z = (int) Math.floor(ct.internal.min.z); z < maxz; z++) {
-                        Location<World> loc = new Location<>(ct.internal.min.world, x, y, z);
-                        if (valids == null || valids.contains(loc.getBlockType())) {
-                            lt.getInternal().add(new LocationTag(loc));
-                        }
-                    }
+            BlockScan scan = ct.scan(getBlockTypes(dat));
+            if (!scan.next()) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("No matching blocks in the cuboid!");
                 }
+                return new NullTag();
             }
-            return lt;
+            return new LocationTag(scan.getX(), scan.getY(), scan.getZ(), ct.internal.min.world);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name CuboidTag.surface_locations
+        // @Updated 2018/03/10
+        // @Group Connected Information
+        // @ReturnType LocationListTag
+        // @Returns the locations on top of the highest block of each column in this cuboid,
+        // for the columns whose surface is within the cuboid's height range.
+        // @Note Partially covered blocks are counted.
+        // -->
+        handlers.put("surface_locations", (dat, obj) -> ((CuboidTag) obj).getSurfaceLocations(false));
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name CuboidTag.safe_surface_locations
+        // @Updated 2018/03/10
+        // @Group Connected Information
+        // @ReturnType LocationListTag
+        // @Returns the surface locations in this cuboid that entities can safely stand on,
+        // as in <@link tag LocationTag.nearest_safe_surface[<IntegerTag>]>nearest_safe_surface<@/link>.
+        // Useful for picking random teleport destinations.
+        // @Note Partially covered blocks are counted.
+        // -->
+        handlers.put("safe_surface_locations", (dat, obj) -> ((CuboidTag) obj).getSurfaceLocations(true));
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name CuboidTag.cuboid_shell
+        // @Updated 2018/03/10
+        // @Group Connected Information
+        // @ReturnType PointListTag
+        // @Returns the locations of the blocks on the faces of this cuboid, without those inside it.
+        // @Note Partially covered blocks are counted.
+        // -->
+        handlers.put("cuboid_shell", (dat, obj) -> {
+            CuboidTag ct = (CuboidTag) obj;
+            return PointListTag.forShape(dat, ct.internal.min.world,
+                    Shapes.shell(ct.getBlockMin(), ct.getBlockMax(), PointListTag.getPointLimit()));
         });
         // <--[tag]
         // @Since 0.3.0
@@ -134,6 +236,10 @@ public class CuboidTag extends AbstractTagObject {
     }
 
     public static CuboidTag getFor(Action<String> error, String text) {
+        UtilCuboid cached = ParseCache.CUBOIDS.get(text);
+        if (cached != null) {
+            return new CuboidTag(cached.min.copy(), cached.max.copy());
+        }
         List<String> split = CoreUtilities.split(text, '/', 3);
         if (split.size() != 3) {
             error.run("Invalid Cuboid tag specifications!");
@@ -149,8 +255,10 @@ public class CuboidTag extends AbstractTagObject {
         NumberTag z2 = NumberTag.getFor(error, maxes.get(2));
         String worldn = split.get(2);
         WorldTag world = WorldTag.getFor(error, worldn);
-        return new CuboidTag(new UtilLocation(x.getInternal(), y.getInternal(), z.getInternal(), world.getInternal()),
+        CuboidTag result = new CuboidTag(new UtilLocation(x.getInternal(), y.getInternal(), z.getInternal(), world.getInternal()),
                 new UtilLocation(x2.getInternal(), y2.getInternal(), z2.getInternal(), world.getInternal()));
+        ParseCache.CUBOIDS.put(text, new UtilCuboid(result.getInternal().min.copy(), result.getInternal().max.copy()));
+        return result;
     }
 
     public static CuboidTag getFor(Action<String> error, AbstractTagObject text) {
@@ -7,6 +7,7 @@ import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.Function2;
 import com.denizenscript.denizen2sponge.utilities.DataKeys;
+import com.denizenscript.denizen2sponge.utilities.EntityCache;
 import com.denizenscript.denizen2sponge.utilities.Utilities;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagHelper;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMap;
@@ -937,16 +938,17 @@ public class EntityTag extends AbstractTagObject {
         });
     }
 
+    public static Entity findEntity(UUID id) {
+        return EntityCache.get(id);
+    }
+
     public static EntityTag getFor(Action<String> error, String text) {
-        UUID id = UUID.fromString(text);
-        for (World world : Sponge.getServer().getWorlds()) {
-            Optional<Entity> e = world.getEntity(id);
-            if (e.isPresent()) {
-                return new EntityTag(e.get());
-            }
+        Entity e = findEntity(UUID.fromString(text));
+        if (e == null) {
+            error.run("Invalid EntityTag UUID input!");
+            return null;
         }
-        error.run("Invalid EntityTag UUID input!");
-        return null;
+        return new EntityTag(e);
     }
 
     public static EntityTag getFor(Action<String> error, AbstractTagObject text) {
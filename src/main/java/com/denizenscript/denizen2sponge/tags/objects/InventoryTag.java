@@ -10,6 +10,7 @@ import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.Function2;
 import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import com.denizenscript.denizen2sponge.utilities.EntityCache;
 import com.denizenscript.denizen2sponge.utilities.UtilLocation;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.block.tileentity.carrier.TileEntityCarrier;
@@ -28,7 +29,6 @@ import org.spongepowered.api.item.inventory.slot.OutputSlot;
 import org.spongepowered.api.item.inventory.type.CarriedInventory;
 import org.spongepowered.api.item.inventory.type.OrderedInventory;
 import org.spongepowered.api.world.LocatableBlock;
-import org.spongepowered.api.world.World;
 
 import java.util.*;
 
@@ -177,12 +177,9 @@ public class InventoryTag extends AbstractTagObject {
             return new InventoryTag(oplayer.get().getInventory());
         }
         else if (split.get(0).equals("entity")) {
-            UUID id = UUID.fromString(split.get(1));
-            for (World world : Sponge.getServer().getWorlds()) {
-                Optional<Entity> e = world.getEntity(id);
-                if (e.isPresent() && e.get() instanceof Carrier) {
-                    return new InventoryTag(((Carrier) e.get()).getInventory());
-                }
+            Entity e = EntityCache.get(UUID.fromString(split.get(1)));
+            if (e instanceof Carrier) {
+                return new InventoryTag(((Carrier) e).getInventory());
             }
             error.run("Invalid EntityTag UUID input!");
             return null;
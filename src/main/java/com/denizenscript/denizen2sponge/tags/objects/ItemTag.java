@@ -7,6 +7,7 @@ import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.Function2;
 import com.denizenscript.denizen2sponge.utilities.DataKeys;
+import com.denizenscript.denizen2sponge.utilities.Utilities;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagHelper;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMap;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMapDataImpl;
@@ -14,6 +15,7 @@ import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.data.key.Keys;
 import org.spongepowered.api.data.type.SkullType;
 import org.spongepowered.api.data.type.SkullTypes;
+import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.profile.property.ProfileProperty;
 
@@ -34,6 +36,9 @@ public class ItemTag extends AbstractTagObject {
 
     private ItemStack internal;
 
+    // Item stacks are copied before any edit, so the wrapped stack and its saved form don't change.
+    private String saved;
+
     public ItemTag(ItemStack itm) {
         internal = itm;
     }
@@ -64,17 +69,10 @@ public class ItemTag extends AbstractTagObject {
         // Optionally don't specify anything to get the entire flag map.
         // -->
         handlers.put("flag", (dat, obj) -> {
-            MapTag flags;
-            ItemStack e = ((ItemTag) obj).internal;
-            Optional<FlagMap> fm = e.get(FlagHelper.FLAGMAP);
-            if (fm.isPresent()) {
-                flags = fm.get().flags;
-            }
-            else {
-                flags = new MapTag();
-            }
+            MapTag flags = FlagHelper.getItemFlags(((ItemTag) obj).internal);
+            // Copied, so scripts can't change flag maps that other stacks share.
             if (!dat.hasNextModifier()) {
-                return flags;
+                return FlagHelper.copyFlags(flags);
             }
             String flagName = CoreUtilities.toLowerCase(dat.getNextModifier().toString());
             AbstractTagObject ato = flags.getInternal().get(flagName);
@@ -84,7 +82,7 @@ public class ItemTag extends AbstractTagObject {
                 }
                 return new NullTag();
             }
-            return ato;
+            return FlagHelper.copyFlag(ato);
         });
         // <--[tag]
         // @Since 0.3.0
@@ -113,15 +111,7 @@ public class ItemTag extends AbstractTagObject {
         // -->
         handlers.put("has_flag", (dat, obj) -> {
             String flagName = CoreUtilities.toLowerCase(dat.getNextModifier().toString());
-            MapTag flags;
-            ItemStack e = ((ItemTag) obj).internal;
-            Optional<FlagMap> fm = e.get(FlagHelper.FLAGMAP);
-            if (fm.isPresent()) {
-                flags = fm.get().flags;
-            }
-            else {
-                flags = new MapTag();
-            }
+            MapTag flags = FlagHelper.getItemFlags(((ItemTag) obj).internal);
             return new BooleanTag(flags.getInternal().containsKey(flagName));
         });
         // <--[tag]
@@ -237,15 +227,7 @@ public class ItemTag extends AbstractTagObject {
         // @Returns a copy of the item, with the specified flag adjustments.
         // -->
         handlers.put("with_flags", (dat, obj) -> {
-            MapTag flags;
-            ItemStack e = ((ItemTag) obj).internal;
-            Optional<FlagMap> fm = e.get(FlagHelper.FLAGMAP);
-            if (fm.isPresent()) {
-                flags = new MapTag(fm.get().flags.getInternal());
-            }
-            else {
-                flags = new MapTag();
-            }
+            MapTag flags = FlagHelper.copyFlags(FlagHelper.getItemFlags(((ItemTag) obj).internal));
             MapTag toApply = MapTag.getFor(dat.error, dat.getNextModifier());
             flags.getInternal().putAll(toApply.getInternal());
             ItemStack its = ((ItemTag) obj).internal.createSnapshot().createStack();
@@ -290,15 +272,7 @@ public class ItemTag extends AbstractTagObject {
         // @Returns a copy of the item, with the specified flags removed.
         // -->
         handlers.put("without_flags", (dat, obj) -> {
-            MapTag flags;
-            ItemStack e = ((ItemTag) obj).internal;
-            Optional<FlagMap> fm = e.get(FlagHelper.FLAGMAP);
-            if (fm.isPresent()) {
-                flags = new MapTag(fm.get().flags.getInternal());
-            }
-            else {
-                flags = new MapTag();
-            }
+            MapTag flags = FlagHelper.copyFlags(FlagHelper.getItemFlags(((ItemTag) obj).internal));
             ListTag toRemove = ListTag.getFor(dat.error, dat.getNextModifier());
             for (AbstractTagObject k : toRemove.getInternal()) {
                 flags.getInternal().remove(k.toString());
@@ -311,7 +285,15 @@ public class ItemTag extends AbstractTagObject {
 
     public static ItemTag getFor(Action<String> error, String text) {
         List<String> split = CoreUtilities.split(text, '/', 3);
-        ItemTypeTag type = ItemTypeTag.getFor(error, split.get(0));
+        String typeName = split.get(0);
+        if (typeName.indexOf(':') < 0) {
+            // The compact form leaves out any of the default prefixes.
+            Object found = Utilities.getTypeWithDefaultPrefix(ItemType.class, typeName);
+            if (found != null) {
+                typeName = ((ItemType) found).getId();
+            }
+        }
+        ItemTypeTag type = ItemTypeTag.getFor(error, typeName);
         int q = 1;
         if (split.size() > 1) {
             q = (int) IntegerTag.getFor(error, split.get(1)).getInternal();
@@ -348,6 +330,18 @@ public class ItemTag extends AbstractTagObject {
 
     @Override
     public String toString() {
-        return internal.getType().getId() + "/" + internal.getQuantity() + "/" + DataKeys.getAllKeys(internal).toString();
+        if (saved == null) {
+            // Compact form: the default prefixes, a quantity of 1 and empty data are all left out.
+            StringBuilder sb = new StringBuilder(Utilities.getIdWithoutDefaultPrefix(internal.getType().getId()));
+            MapTag data = DataKeys.getPresentKeys(internal);
+            if (internal.getQuantity() != 1 || !data.getInternal().isEmpty()) {
+                sb.append('/').append(internal.getQuantity());
+            }
+            if (!data.getInternal().isEmpty()) {
+                sb.append('/').append(data.toString());
+            }
+            saved = sb.toString();
+        }
+        return saved;
     }
 }
@@ -0,0 +1,186 @@
+package com.denizenscript.denizen2sponge.tags.objects;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.TagData;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.tags.objects.ListTag;
+import com.denizenscript.denizen2core.tags.objects.NullTag;
+import com.denizenscript.denizen2core.utilities.Function2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public abstract class LazyListTag extends ListTag {
+
+    // <--[object]
+    // @Since 0.4.0
+    // @Type LazyListTag
+    // @SubType ListTag
+    // @Group Mathematics
+    // @Description Represents a list whose entries are only created as they are accessed, such as the results of block searches.
+    // Commands and tags that read the whole list see it as a normal ListTag, which is only built once.
+    // Any tags not listed here are handled by the equivalent ListTag.
+    // -->
+
+    private boolean built = false;
+
+    private ListTag plain;
+
+    // The size of the list. For lists with a lazy source, this has to finish reading the source.
+    public abstract int size();
+
+    // Whether the list has an entry at the index, reading only as much of any lazy source as needed.
+    public boolean has(int index) {
+        return index < size();
+    }
+
+    // Creates the entry at the index, which must have been checked with has(index) or size().
+    public abstract AbstractTagObject getEntry(int index);
+
+    public abstract LazyListTag limit(int count);
+
+    // Whether the full list of entries was built, after which added entries also have to be added to it.
+    protected boolean isBuilt() {
+        return built;
+    }
+
+    protected void addBuilt(AbstractTagObject entry) {
+        super.getInternal().add(entry);
+        plain = null;
+    }
+
+    @Override
+    public ArrayList<AbstractTagObject> getInternal() {
+        ArrayList<AbstractTagObject> list = super.getInternal();
+        if (!built) {
+            // Read any lazy source to the end before marking the list as built.
+            int size = size();
+            built = true;
+            list.ensureCapacity(size);
+            for (int i = 0; i < size; i++) {
+                list.add(getEntry(i));
+            }
+        }
+        return list;
+    }
+
+    // A plain copy of the list, for anything that needs a ListTag's own behaviour. Made once and reused.
+    public ListTag toListTag() {
+        if (plain == null) {
+            plain = new ListTag();
+            plain.getInternal().addAll(getInternal());
+        }
+        return plain;
+    }
+
+    public final static HashMap<String, Function2<TagData, AbstractTagObject, AbstractTagObject>> handlers = new HashMap<>();
+
+    static {
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LazyListTag.size
+        // @Updated 2018/03/10
+        // @Group Identification
+        // @ReturnType IntegerTag
+        // @Returns the number of entries in the list.
+        // -->
+        handlers.put("size", (dat, obj) -> new IntegerTag(((LazyListTag) obj).size()));
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LazyListTag.get[<IntegerTag>]
+        // @Updated 2018/03/10
+        // @Group Identification
+        // @ReturnType LocationTag
+        // @Returns the entry at the specified index in the list. Indices start at 1.
+        // -->
+        handlers.put("get", (dat, obj) -> {
+            LazyListTag list = (LazyListTag) obj;
+            int index = (int) IntegerTag.getFor(dat.error, dat.getNextModifier()).getInternal();
+            if (index < 1 || !list.has(index - 1)) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("Invalid list index specified!");
+                }
+                return new NullTag();
+            }
+            return list.getEntry(index - 1);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LazyListTag.first
+        // @Updated 2018/03/10
+        // @Group Identification
+        // @ReturnType LocationTag
+        // @Returns the first entry in the list.
+        // -->
+        handlers.put("first", (dat, obj) -> {
+            LazyListTag list = (LazyListTag) obj;
+            if (!list.has(0)) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("The list is empty!");
+                }
+                return new NullTag();
+            }
+            return list.getEntry(0);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LazyListTag.last
+        // @Updated 2018/03/10
+        // @Group Identification
+        // @ReturnType LocationTag
+        // @Returns the last entry in the list.
+        // -->
+        handlers.put("last", (dat, obj) -> {
+            LazyListTag list = (LazyListTag) obj;
+            int size = list.size();
+            if (size == 0) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("The list is empty!");
+                }
+                return new NullTag();
+            }
+            return list.getEntry(size - 1);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LazyListTag.limit[<IntegerTag>]
+        // @Updated 2018/03/10
+        // @Group Identification
+        // @ReturnType LazyListTag
+        // @Returns the first entries in the list, up to the specified amount.
+        // For block search results, the search stops once that many blocks were found.
+        // -->
+        handlers.put("limit", (dat, obj) -> {
+            int count = (int) IntegerTag.getFor(dat.error, dat.getNextModifier()).getInternal();
+            return ((LazyListTag) obj).limit(Math.max(count, 0));
+        });
+    }
+
+    @Override
+    public HashMap<String, Function2<TagData, AbstractTagObject, AbstractTagObject>> getHandlers() {
+        return handlers;
+    }
+
+    @Override
+    public AbstractTagObject handleElseCase(TagData data) {
+        return toListTag();
+    }
+
+    @Override
+    public String savable() {
+        // Saved as a plain list, so it loads back without knowing about lazy lists.
+        return toListTag().savable();
+    }
+
+    @Override
+    public String toString() {
+        getInternal();
+        return super.toString();
+    }
+
+    @Override
+    public String debug() {
+        getInternal();
+        return super.debug();
+    }
+}
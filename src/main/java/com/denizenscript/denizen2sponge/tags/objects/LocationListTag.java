@@ -0,0 +1,124 @@
+package com.denizenscript.denizen2sponge.tags.objects;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockScan;
+import org.spongepowered.api.world.World;
+
+import java.util.Arrays;
+
+public class LocationListTag extends LazyListTag {
+
+    // <--[object]
+    // @Since 0.4.0
+    // @Type LocationListTag
+    // @SubType LazyListTag
+    // @Group Mathematics
+    // @Description Represents a list of block locations within a single world, as returned by block search tags.
+    // The locations are stored compactly, and only become LocationTags when accessed.
+    // Lists returned by block searches are lazy: the search only runs as far as needed to answer the tags used on it.
+    // -->
+
+    private World world;
+
+    // Packed x,y,z triplets.
+    private int[] coords;
+
+    private int size = 0;
+
+    // Remaining matches not yet added to the list, or null if the list is complete.
+    private BlockScan source;
+
+    public LocationListTag(BlockScan source) {
+        this(source.world);
+        this.source = source;
+    }
+
+    public LocationListTag(World world) {
+        this(world, 16);
+    }
+
+    public LocationListTag(World world, int capacity) {
+        this.world = world;
+        this.coords = new int[Math.max(capacity, 1) * 3];
+    }
+
+    public void add(int x, int y, int z) {
+        if (size * 3 == coords.length) {
+            coords = Arrays.copyOf(coords, coords.length * 2);
+        }
+        coords[size * 3] = x;
+        coords[size * 3 + 1] = y;
+        coords[size * 3 + 2] = z;
+        size++;
+        if (isBuilt()) {
+            addBuilt(new LocationTag(x, y, z, world));
+        }
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    // Pulls matches from the source until the list holds at least the given amount, returning whether it does.
+    private boolean fill(int count) {
+        while (size < count && source != null) {
+            if (source.next()) {
+                add(source.getX(), source.getY(), source.getZ());
+            }
+            else {
+                source = null;
+            }
+        }
+        return size >= count;
+    }
+
+    @Override
+    public boolean has(int index) {
+        return fill(index + 1);
+    }
+
+    @Override
+    public int size() {
+        fill(Integer.MAX_VALUE);
+        return size;
+    }
+
+    @Override
+    public LocationListTag limit(int count) {
+        fill(count);
+        int length = Math.min(count, size);
+        LocationListTag limited = new LocationListTag(world, length);
+        System.arraycopy(coords, 0, limited.coords, 0, length * 3);
+        limited.size = length;
+        return limited;
+    }
+
+    // The coordinate getters require the index to have been checked with has(index) or size().
+
+    public int getX(int index) {
+        return coords[index * 3];
+    }
+
+    public int getY(int index) {
+        return coords[index * 3 + 1];
+    }
+
+    public int getZ(int index) {
+        return coords[index * 3 + 2];
+    }
+
+    public LocationTag get(int index) {
+        fill(index + 1);
+        return new LocationTag(getX(index), getY(index), getZ(index), world);
+    }
+
+    @Override
+    public AbstractTagObject getEntry(int index) {
+        return get(index);
+    }
+
+    @Override
+    public String getTagTypeName() {
+        return "LocationListTag";
+    }
+}
@@ -7,10 +7,17 @@ import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.Function2;
 import com.denizenscript.denizen2sponge.utilities.DataKeys;
+import com.denizenscript.denizen2sponge.utilities.EntitySpatialIndex;
+import com.denizenscript.denizen2sponge.utilities.ParseCache;
+import com.denizenscript.denizen2sponge.utilities.Shapes;
 import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.denizenscript.denizen2sponge.utilities.blocks.BlockVolumes;
+import com.denizenscript.denizen2sponge.utilities.blocks.HeightmapCache;
+import com.denizenscript.denizen2sponge.utilities.blocks.RayCaster;
 import com.flowpowered.math.vector.Vector3d;
 import com.flowpowered.math.vector.Vector3i;
 import org.spongepowered.api.Sponge;
+import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.block.tileentity.Skull;
 import org.spongepowered.api.block.tileentity.TileEntity;
 import org.spongepowered.api.block.tileentity.carrier.TileEntityCarrier;
@@ -20,17 +27,13 @@ import org.spongepowered.api.data.type.SkullTypes;
 import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.profile.property.ProfileProperty;
 import org.spongepowered.api.text.Text;
-import org.spongepowered.api.util.AABB;
 import org.spongepowered.api.util.blockray.BlockRay;
 import org.spongepowered.api.util.blockray.BlockRayHit;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.TeleportHelper;
 import org.spongepowered.api.world.World;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 
 public class LocationTag extends AbstractTagObject {
 
@@ -338,11 +341,12 @@ public class LocationTag extends AbstractTagObject {
         // <--[tag]
         // @Since 0.3.0
         // @Name LocationTag.nearby_entities[<MapTag>]
-        // @Updated 2016/08/26
+        // @Updated 2018/03/06
         // @Group World Data
         // @ReturnType ListTag<EntityTag>
         // @Returns a list of entities of a specified type (or any type if unspecified) near the location.
-        // Input is type:<EntityTypeTag>|range:<NumberTag>
+        // Optionally specify a limit to only get that many of the closest entities, sorted by distance.
+        // Input is type:<EntityTypeTag>|range:<NumberTag>|limit:<IntegerTag>
         // -->
         handlers.put("nearby_entities", (dat, obj) -> {
             ListTag list = new ListTag();
@@ -352,28 +356,54 @@ public class LocationTag extends AbstractTagObject {
                 requiredTypeTag = EntityTypeTag.getFor(dat.error, map.getInternal().get("type"));
             }
             double range = NumberTag.getFor(dat.error, map.getInternal().get("range")).getInternal();
+            int limit = 0;
+            if (map.getInternal().containsKey("limit")) {
+                limit = (int) IntegerTag.getFor(dat.error, map.getInternal().get("limit")).getInternal();
+            }
             UtilLocation loc = ((LocationTag) obj).getInternal();
-            Set<Entity> ents = loc.world.getIntersectingEntities(new AABB(
-                    loc.x - range, loc.y - range, loc.z - range, loc.x + range, loc.y + range, loc.z + range));
-            for (Entity ent : ents) {
-                if ((requiredTypeTag == null || ent.getType().equals(requiredTypeTag.getInternal()))
-                        && LengthSquared(ent.getLocation().sub(loc.toVector3d())) < range * range) {
-                    list.getInternal().add(new EntityTag(ent));
-                }
+            for (Entity ent : EntitySpatialIndex.getNearby(loc.world, loc.toVector3d(), range,
+                    requiredTypeTag == null ? null : requiredTypeTag.getInternal(), limit)) {
+                list.getInternal().add(new EntityTag(ent));
             }
             return list;
         });
         // <--[tag]
+        // @Since 0.4.0
+        // @Name LocationTag.nearest_entity[<MapTag>]
+        // @Updated 2018/03/06
+        // @Group World Data
+        // @ReturnType EntityTag
+        // @Returns the closest entity of a specified type (or any type if unspecified) within range of the location.
+        // Input is type:<EntityTypeTag>|range:<NumberTag>
+        // -->
+        handlers.put("nearest_entity", (dat, obj) -> {
+            MapTag map = MapTag.getFor(dat.error, dat.getNextModifier());
+            EntityTypeTag requiredTypeTag = null;
+            if (map.getInternal().containsKey("type")) {
+                requiredTypeTag = EntityTypeTag.getFor(dat.error, map.getInternal().get("type"));
+            }
+            double range = NumberTag.getFor(dat.error, map.getInternal().get("range")).getInternal();
+            UtilLocation loc = ((LocationTag) obj).getInternal();
+            Entity ent = EntitySpatialIndex.getNearest(loc.world, loc.toVector3d(), range,
+                    requiredTypeTag == null ? null : requiredTypeTag.getInternal());
+            if (ent == null) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("No entities found within range of the location!");
+                }
+                return new NullTag();
+            }
+            return new EntityTag(ent);
+        });
+        // <--[tag]
         // @Since 0.3.0
         // @Name LocationTag.nearby_blocks[<MapTag>]
-        // @Updated 2017/01/29
+        // @Updated 2018/03/07
         // @Group World Data
-        // @ReturnType ListTag<LocationTag>
+        // @ReturnType LocationListTag
         // @Returns a list of block locations of a specified type (or any type if unspecified) near the location.
         // Input is type:<BlockTypeTag>|range:<NumberTag>
         // -->
         handlers.put("nearby_blocks", (dat, obj) -> {
-            ListTag list = new ListTag();
             MapTag map = MapTag.getFor(dat.error, dat.getNextModifier());
             BlockTypeTag requiredTypeTag = null;
             if (map.getInternal().containsKey("type")) {
@@ -381,19 +411,19 @@ public class LocationTag extends AbstractTagObject {
             }
             double range = NumberTag.getFor(dat.error, map.getInternal().get("range")).getInternal();
             UtilLocation loc = ((LocationTag) obj).getInternal();
-            int low = (int) Math.floor(-range);
-            int high = (int) Math.ceil(range);
-            for (int x = low; x < high; x++) {
-                for (int y = low; y < high; y++) {
-                    for (int z = low; z < high; z++) {
-                        Location<World> le = new Location<>(loc.world, loc.x + x, loc.y + y, loc.z + z);
-                        if ((requiredTypeTag == null || le.getBlock().getType().equals(requiredTypeTag.getInternal()))
-                                && LengthSquared(le.sub(loc.toVector3d())) < range * range) {
-                            list.getInternal().add(new LocationTag(le));
-                        }
-                    }
+            LocationListTag list = new LocationListTag(loc.world);
+            Set<BlockType> types = requiredTypeTag == null ? null : BlockVolumes.typeSet(Collections.singleton(requiredTypeTag.getInternal()));
+            double rangeSquared = range * range;
+            Vector3i min = new Vector3i(Math.floor(loc.x - range), Math.floor(loc.y - range), Math.floor(loc.z - range));
+            Vector3i max = new Vector3i(Math.ceil(loc.x + range), Math.ceil(loc.y + range), Math.ceil(loc.z + range));
+            BlockVolumes.forEachBlock(loc.world, min, max, types, (x, y, z, type) -> {
+                double dx = x - loc.x;
+                double dy = y - loc.y;
+                double dz = z - loc.z;
+                if (dx * dx + dy * dy + dz * dz < rangeSquared) {
+                    list.add(x, y, z);
                 }
-            }
+            });
             return list;
         });
         // <--[tag]
@@ -548,13 +578,165 @@ public class LocationTag extends AbstractTagObject {
         });
         // <--[tag]
         // @Since 0.4.0
+        // @Name LocationTag.lines_of_sight[<ListTag>]
+        // @Updated 2018/03/10
+        // @Group Block Ray
+        // @ReturnType MapTag
+        // @Returns a map of each location in the specified list to whether it is in the line of sight of this location.
+        // Much faster than checking each location with <@link tag LocationTag.line_of_sight[<LocationTag>]>line_of_sight<@/link>.
+        // Locations in other worlds, or behind unloaded chunks, are never in the line of sight.
+        // See also the <@link command lineofsight>lineofsight command<@/link>.
+        // -->
+        handlers.put("lines_of_sight", (dat, obj) -> {
+            UtilLocation origin = ((LocationTag) obj).internal;
+            ListTag targets = ListTag.getFor(dat.error, dat.getNextModifier());
+            if (origin.world == null) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("The location has no world!");
+                }
+                return new NullTag();
+            }
+            return RayCaster.checkAll(new RayCaster(origin.world), origin, targets, dat.error);
+        });
+        // <--[tag]
+        // @Since 0.4.0
         // @Name LocationTag.highest_location
-        // @Updated 2018/02/08
+        // @Updated 2018/03/10
         // @Group Location Search
         // @ReturnType LocationTag
         // @Returns the location on top of the highest solid block on this location's column.
         // -->
-        handlers.put("highest_location", (dat, obj) -> new LocationTag(((LocationTag) obj).internal.toLocation().asHighestLocation()));
+        handlers.put("highest_location", (dat, obj) -> {
+            UtilLocation loc = ((LocationTag) obj).internal;
+            Vector3i pos = loc.toVector3i();
+            return new LocationTag(pos.getX(), HeightmapCache.getHighestY(loc.world, pos.getX(), pos.getZ()), pos.getZ(), loc.world);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LocationTag.nearest_safe_surface[<IntegerTag>]
+        // @Updated 2018/03/10
+        // @Group Location Search
+        // @ReturnType LocationTag
+        // @Returns the nearest location on top of a column's highest block that entities can safely stand on,
+        // searching columns up to the specified number of blocks away horizontally, at most 128.
+        // Safe locations have solid ground that isn't harmful (like lava or cactus) and two blocks of free space.
+        // Columns in chunks that aren't loaded are not searched.
+        // -->
+        handlers.put("nearest_safe_surface", (dat, obj) -> {
+            UtilLocation loc = ((LocationTag) obj).internal;
+            Vector3i pos = loc.toVector3i();
+            long radius = IntegerTag.getFor(dat.error, dat.getNextModifier()).getInternal();
+            if (radius < 0 || radius > HeightmapCache.MAX_SEARCH_RADIUS) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("The radius must be between 0 and " + HeightmapCache.MAX_SEARCH_RADIUS + "!");
+                }
+                return new NullTag();
+            }
+            Vector3i found = HeightmapCache.findSafeSurface(loc.world, pos.getX(), pos.getZ(), (int) radius);
+            if (found == null) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("No safe surface locations within range!");
+                }
+                return new NullTag();
+            }
+            return new LocationTag(found.getX(), found.getY(), found.getZ(), loc.world);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LocationTag.sphere[<NumberTag>]
+        // @Updated 2018/03/10
+        // @Group Shapes
+        // @ReturnType PointListTag
+        // @Returns points spread evenly over the surface of a sphere with the specified radius around this location,
+        // about half a block apart.
+        // -->
+        handlers.put("sphere", (dat, obj) -> {
+            UtilLocation loc = ((LocationTag) obj).internal;
+            double radius = NumberTag.getFor(dat.error, dat.getNextModifier()).getInternal();
+            if (!checkShapeSize(dat, radius, "radius")) {
+                return new NullTag();
+            }
+            return PointListTag.forShape(dat, loc.world, Shapes.sphere(loc.toVector3d(), radius, PointListTag.getPointLimit()));
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LocationTag.circle[<NumberTag>]
+        // @Updated 2018/03/10
+        // @Group Shapes
+        // @ReturnType PointListTag
+        // @Returns points along a horizontal circle with the specified radius around this location, about half a block apart.
+        // -->
+        handlers.put("circle", (dat, obj) -> {
+            UtilLocation loc = ((LocationTag) obj).internal;
+            double radius = NumberTag.getFor(dat.error, dat.getNextModifier()).getInternal();
+            if (!checkShapeSize(dat, radius, "radius")) {
+                return new NullTag();
+            }
+            return PointListTag.forShape(dat, loc.world, Shapes.circle(loc.toVector3d(), radius, PointListTag.getPointLimit()));
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LocationTag.line_to[<LocationTag>]
+        // @Updated 2018/03/10
+        // @Group Shapes
+        // @ReturnType PointListTag
+        // @Returns points along the straight line from this location to the specified location, about half a block apart.
+        // Both ends are included.
+        // -->
+        handlers.put("line_to", (dat, obj) -> {
+            UtilLocation loc = ((LocationTag) obj).internal;
+            UtilLocation end = LocationTag.getFor(dat.error, dat.getNextModifier()).internal;
+            if (end.world != null && loc.world != null && end.world != loc.world) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("Cannot draw a line between two different worlds!");
+                }
+                return new NullTag();
+            }
+            return PointListTag.forShape(dat, loc.world, Shapes.line(loc.toVector3d(), end.toVector3d(), PointListTag.getPointLimit()));
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name LocationTag.helix[<MapTag>]
+        // @Updated 2018/03/10
+        // @Group Shapes
+        // @ReturnType PointListTag
+        // @Returns points along a spiral going up from this location, about half a block apart.
+        // Specify the "radius" and "height" of the spiral, and optionally how many "turns" it makes (defaults to 1).
+        // A negative height makes the spiral go down instead.
+        // -->
+        handlers.put("helix", (dat, obj) -> {
+            UtilLocation loc = ((LocationTag) obj).internal;
+            MapTag settings = MapTag.getFor(dat.error, dat.getNextModifier());
+            AbstractTagObject radius = settings.getInternal().get("radius");
+            AbstractTagObject height = settings.getInternal().get("height");
+            AbstractTagObject turns = settings.getInternal().get("turns");
+            if (radius == null || height == null) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("A helix needs a radius and a height!");
+                }
+                return new NullTag();
+            }
+            double radiusValue = NumberTag.getFor(dat.error, radius).getInternal();
+            double heightValue = NumberTag.getFor(dat.error, height).getInternal();
+            double turnsValue = turns == null ? 1 : NumberTag.getFor(dat.error, turns).getInternal();
+            if (!checkShapeSize(dat, radiusValue, "radius") || !checkShapeSize(dat, Math.abs(heightValue), "height")
+                    || !checkShapeSize(dat, turnsValue, "number of turns")) {
+                return new NullTag();
+            }
+            return PointListTag.forShape(dat, loc.world, Shapes.helix(loc.toVector3d(), radiusValue, heightValue, turnsValue,
+                    PointListTag.getPointLimit()));
+        });
+    }
+
+    // Shape sizes must be real numbers of zero or more. Shapes that are too big are caught by their point limit.
+    private static boolean checkShapeSize(TagData dat, double value, String name) {
+        if (value >= 0 && !Double.isInfinite(value)) {
+            return true;
+        }
+        if (!dat.hasFallback()) {
+            dat.error.run("Invalid shape " + name + ": " + value + "! Must be zero or more.");
+        }
+        return false;
     }
 
     public static double LengthSquared(Location<World> loc) {
@@ -562,15 +744,24 @@ public class LocationTag extends AbstractTagObject {
     }
 
     public static LocationTag getFor(Action<String> error, String text) {
+        UtilLocation cached = ParseCache.LOCATIONS.get(text);
+        if (cached != null) {
+            return new LocationTag(cached.copy());
+        }
         List<String> split = CoreUtilities.split(text, ',', 4);
         NumberTag x = NumberTag.getFor(error, split.get(0));
         NumberTag y = NumberTag.getFor(error, split.get(1));
         NumberTag z = NumberTag.getFor(error, split.get(2));
+        LocationTag result;
         if (split.size() == 3) {
-            return new LocationTag(x.getInternal(), y.getInternal(), z.getInternal());
+            result = new LocationTag(x.getInternal(), y.getInternal(), z.getInternal());
+        }
+        else {
+            WorldTag world = WorldTag.getFor(error, split.get(3));
+            result = new LocationTag(x.getInternal(), y.getInternal(), z.getInternal(), world.getInternal());
         }
-        WorldTag world = WorldTag.getFor(error, split.get(3));
-        return new LocationTag(x.getInternal(), y.getInternal(), z.getInternal(), world.getInternal());
+        ParseCache.LOCATIONS.put(text, result.getInternal().copy());
+        return result;
     }
 
     public static LocationTag getFor(Action<String> error, AbstractTagObject text) {
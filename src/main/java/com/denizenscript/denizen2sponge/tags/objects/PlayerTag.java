@@ -5,6 +5,7 @@ import com.denizenscript.denizen2core.tags.TagData;
 import com.denizenscript.denizen2core.tags.objects.*;
 import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.Function2;
+import com.denizenscript.denizen2sponge.utilities.PlayerIndex;
 import com.denizenscript.denizen2sponge.utilities.Utilities;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.advancement.Advancement;
@@ -373,22 +374,20 @@ public class PlayerTag extends AbstractTagObject {
     }
 
     public static PlayerTag getFor(Action<String> error, String text) {
-        try {
-            Optional<Player> oplayer = Sponge.getServer().getPlayer(UUID.fromString(text));
-            if (!oplayer.isPresent()) {
+        if (Utilities.isUUID(text)) {
+            Player player = PlayerIndex.getById(UUID.fromString(text));
+            if (player == null) {
                 error.run("Invalid PlayerTag UUID input!");
                 return null;
             }
-            return new PlayerTag(oplayer.get());
+            return new PlayerTag(player);
         }
-        catch (IllegalArgumentException e) { // TODO: better impl of this backup logic
-            Optional<Player> oplayer = Sponge.getServer().getPlayer(text);
-            if (!oplayer.isPresent()) {
-                error.run("Invalid PlayerTag named input!");
-                return null;
-            }
-            return new PlayerTag(oplayer.get());
+        Player player = PlayerIndex.getByName(text);
+        if (player == null) {
+            error.run("Invalid PlayerTag named input!");
+            return null;
         }
+        return new PlayerTag(player);
     }
 
     public static PlayerTag getFor(Action<String> error, AbstractTagObject text) {
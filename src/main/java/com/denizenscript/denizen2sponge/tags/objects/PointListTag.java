@@ -0,0 +1,176 @@
+package com.denizenscript.denizen2sponge.tags.objects;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.TagData;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.tags.objects.NullTag;
+import com.denizenscript.denizen2core.utilities.Function2;
+import com.denizenscript.denizen2sponge.Settings;
+import com.denizenscript.denizen2sponge.utilities.Shapes;
+import org.spongepowered.api.world.World;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class PointListTag extends LazyListTag {
+
+    // <--[object]
+    // @Since 0.4.0
+    // @Type PointListTag
+    // @SubType LazyListTag
+    // @Group Mathematics
+    // @Description Represents the points of a shape within a single world, as returned by shape tags such as
+    // <@link tag LocationTag.sphere[<NumberTag>]>LocationTag.sphere<@/link>.
+    // The points are computed as they are used, and commands such as playeffect and setblock read them
+    // directly without building a list.
+    // Shapes may have at most as many points as the "Blocks.Shape Point Limit" config setting allows.
+    // -->
+
+    private World world;
+
+    private Shapes.PointGenerator points;
+
+    public PointListTag(World world, Shapes.PointGenerator points) {
+        this.world = world;
+        this.points = points;
+    }
+
+    public static int getPointLimit() {
+        return (int) Math.min(Integer.MAX_VALUE, Settings.shapePointLimit());
+    }
+
+    // Wraps a shape from a shape tag, or reports that it had too many points if it is null.
+    public static AbstractTagObject forShape(TagData dat, World world, Shapes.PointGenerator points) {
+        if (points == null) {
+            if (!dat.hasFallback()) {
+                dat.error.run("The shape has too many points! At most " + getPointLimit()
+                        + " are allowed, as set by 'Blocks.Shape Point Limit' in the config.");
+            }
+            return new NullTag();
+        }
+        return new PointListTag(world, points);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public int size() {
+        return points.size();
+    }
+
+    // Writes the x, y and z of the point at the index into the array.
+    public void getPoint(int index, double[] out) {
+        points.get(index, out);
+    }
+
+    public LocationTag get(int index) {
+        double[] point = new double[3];
+        points.get(index, point);
+        return new LocationTag(point[0], point[1], point[2], world);
+    }
+
+    @Override
+    public AbstractTagObject getEntry(int index) {
+        return get(index);
+    }
+
+    @Override
+    public PointListTag limit(int count) {
+        Shapes.PointGenerator base = points;
+        int length = Math.min(count, base.size());
+        return new PointListTag(world, new Shapes.PointGenerator() {
+            @Override
+            public int size() {
+                return length;
+            }
+
+            @Override
+            public void get(int index, double[] out) {
+                base.get(index, out);
+            }
+        });
+    }
+
+    public PointListTag every(int step) {
+        Shapes.PointGenerator base = points;
+        int length = (base.size() + step - 1) / step;
+        return new PointListTag(world, new Shapes.PointGenerator() {
+            @Override
+            public int size() {
+                return length;
+            }
+
+            @Override
+            public void get(int index, double[] out) {
+                base.get(index * step, out);
+            }
+        });
+    }
+
+    // The blocks the points fall in, each only once, in the order they are first reached.
+    public LocationListTag toBlockList() {
+        int size = size();
+        LocationListTag blocks = new LocationListTag(world, Math.min(size, 1024));
+        HashSet<Long> seen = new HashSet<>();
+        double[] point = new double[3];
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            points.get(i, point);
+            int x = (int) Math.floor(point[0]);
+            int y = (int) Math.floor(point[1]);
+            int z = (int) Math.floor(point[2]);
+            long key = ((x & 0x3FFFFFFL) << 38) | ((y & 0xFFFL) << 26) | (z & 0x3FFFFFFL);
+            // Neighbouring points usually share a block, so skip the set when they do.
+            if (key != last && seen.add(key)) {
+                blocks.add(x, y, z);
+            }
+            last = key;
+        }
+        return blocks;
+    }
+
+    public final static HashMap<String, Function2<TagData, AbstractTagObject, AbstractTagObject>> handlers = new HashMap<>();
+
+    static {
+        handlers.putAll(LazyListTag.handlers);
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name PointListTag.every[<IntegerTag>]
+        // @Updated 2018/03/10
+        // @Group Mathematics
+        // @ReturnType PointListTag
+        // @Returns every nth point in the list, starting with the first. Useful to thin out the points of large shapes.
+        // -->
+        handlers.put("every", (dat, obj) -> {
+            int step = (int) IntegerTag.getFor(dat.error, dat.getNextModifier()).getInternal();
+            if (step < 1) {
+                if (!dat.hasFallback()) {
+                    dat.error.run("The step must be at least 1!");
+                }
+                return new NullTag();
+            }
+            return ((PointListTag) obj).every(step);
+        });
+        // <--[tag]
+        // @Since 0.4.0
+        // @Name PointListTag.blocks
+        // @Updated 2018/03/10
+        // @Group Mathematics
+        // @ReturnType LocationListTag
+        // @Returns the block locations the points in the list fall in, each listed only once.
+        // -->
+        handlers.put("blocks", (dat, obj) -> ((PointListTag) obj).toBlockList());
+    }
+
+    @Override
+    public HashMap<String, Function2<TagData, AbstractTagObject, AbstractTagObject>> getHandlers() {
+        return handlers;
+    }
+
+    @Override
+    public String getTagTypeName() {
+        return "PointListTag";
+    }
+}
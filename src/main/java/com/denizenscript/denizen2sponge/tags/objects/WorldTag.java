@@ -7,6 +7,7 @@ import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
 import com.denizenscript.denizen2core.utilities.Function2;
 import com.denizenscript.denizen2sponge.utilities.GameRules;
+import com.denizenscript.denizen2sponge.utilities.ParseCache;
 import com.denizenscript.denizen2sponge.utilities.Utilities;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.entity.Entity;
@@ -274,11 +275,16 @@ public class WorldTag extends AbstractTagObject {
     }
 
     public static WorldTag getFor(Action<String> error, String text) {
+        World cached = ParseCache.WORLDS.get(text);
+        if (cached != null) {
+            return new WorldTag(cached);
+        }
         Optional<World> optWorld = Sponge.getServer().getWorld(text);
         if (!optWorld.isPresent()) {
             error.run("Invalid WorldTag input!");
             return null;
         }
+        ParseCache.WORLDS.put(text, optWorld.get());
         return new WorldTag(optWorld.get());
     }
 
@@ -4,7 +4,6 @@ import com.denizenscript.denizen2core.tags.AbstractTagObject;
 import com.denizenscript.denizen2core.tags.objects.*;
 import com.denizenscript.denizen2core.utilities.Action;
 import com.denizenscript.denizen2core.utilities.CoreUtilities;
-import com.denizenscript.denizen2core.utilities.ErrorInducedException;
 import com.denizenscript.denizen2core.utilities.debugging.Debug;
 import com.denizenscript.denizen2sponge.tags.objects.FormattedTextTag;
 import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
@@ -12,39 +11,73 @@ import com.denizenscript.denizen2sponge.utilities.flags.FlagHelper;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMap;
 import com.denizenscript.denizen2sponge.utilities.flags.FlagMapDataImpl;
 import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.reflect.TypeToken;
 import org.spongepowered.api.CatalogType;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.data.DataHolder;
 import org.spongepowered.api.data.ImmutableDataHolder;
 import org.spongepowered.api.data.key.Key;
-import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.data.manipulator.DataManipulator;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
 import org.spongepowered.api.text.Text;
+import org.spongepowered.api.util.rotation.Rotation;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Optional;
+import java.util.*;
 
 public class DataKeys {
 
+    // Keys by both their full ID and their ID without namespace, built once from the registry
+    // and only rebuilt when a lookup misses and the registry has changed since.
+
+    private static Map<String, Key> keysByName;
     private static Collection<Key> keys;
-    private static int lastUpdate;
+    private static int registeredCount;
+    private static int lastMiss = -1;
 
-    private static void updateKeys() {
-        int currentTime = Sponge.getServer().getRunningTimeTicks();
-        if (currentTime != lastUpdate) {
-            lastUpdate = currentTime;
-            keys = new HashSet<>(Sponge.getRegistry().getAllOf(Key.class));
-            keys.add(FlagHelper.FLAGMAP); // TODO: Make this not needed! GetAllOf shouldn't require manual key registration!
+    public static void rebuildKeys() {
+        Collection<Key> registered = Sponge.getRegistry().getAllOf(Key.class);
+        HashSet<Key> allKeys = new HashSet<>(registered);
+        allKeys.add(FlagHelper.FLAGMAP); // TODO: Make this not needed! GetAllOf shouldn't require manual key registration!
+        HashMap<String, Key> byName = new HashMap<>();
+        for (Key key : allKeys) {
+            byName.put(CoreUtilities.toLowerCase(key.getId()), key);
+        }
+        for (Key key : allKeys) {
+            String id = CoreUtilities.toLowerCase(key.getId());
+            String shortName = CoreUtilities.after(id, ":");
+            // Short names never replace full IDs, and prefer Sponge's own keys when two namespaces share one.
+            Key existing = byName.get(shortName);
+            if (existing == null || (!CoreUtilities.toLowerCase(existing.getId()).equals(shortName)
+                    && id.startsWith("sponge:") && !CoreUtilities.toLowerCase(existing.getId()).startsWith("sponge:"))) {
+                byName.put(shortName, key);
+            }
+        }
+        keysByName = Collections.unmodifiableMap(byName);
+        keys = Collections.unmodifiableSet(allKeys);
+        registeredCount = registered.size();
+    }
+
+    private static void ensureKeys() {
+        if (keys == null) {
+            rebuildKeys();
         }
     }
 
     public static Key getKeyForName(String name) {
-        updateKeys();
+        ensureKeys();
         name = CoreUtilities.toLowerCase(name);
-        for (Key key : keys) {
-            if (name.equals(CoreUtilities.after(key.getId(), ":"))
-                    || name.equals(key.getId())) {
-                return key;
+        Key key = keysByName.get(name);
+        if (key != null) {
+            return key;
+        }
+        // Plugins may register keys late, so check for registry changes at most once per tick on misses.
+        int currentTime = Sponge.getServer().getRunningTimeTicks();
+        if (currentTime != lastMiss) {
+            lastMiss = currentTime;
+            if (Sponge.getRegistry().getAllOf(Key.class).size() != registeredCount) {
+                rebuildKeys();
+                return keysByName.get(name);
             }
         }
         return null;
@@ -52,7 +85,7 @@ public class DataKeys {
 
     public static MapTag getAllKeys(DataHolder dataHolder) {
         MapTag temp = new MapTag();
-        updateKeys();
+        ensureKeys();
         for (Key key : keys) {
             if (!dataHolder.supports(key)) {
                 continue;
@@ -71,52 +104,226 @@ public class DataKeys {
         return temp;
     }
 
-    // TODO: List support!
-    // TODO: Rotation support!
-
-    public static AbstractTagObject getValue(DataHolder dataHolder, Key key, Action<String> error) {
-        Class clazz = key.getElementToken().getRawType();
-        if (!dataHolder.supports(key)) {
-            if (FlagMap.class.isAssignableFrom(clazz)) {
-                return new MapTag();
+    // Only reads the values of the data manipulators actually present on the holder,
+    // with keys named by their short name when that resolves back to the same key.
+    public static MapTag getPresentKeys(DataHolder dataHolder) {
+        MapTag temp = new MapTag();
+        for (DataManipulator<?, ?> manipulator : dataHolder.getContainers()) {
+            for (ImmutableValue<?> value : manipulator.getValues()) {
+                Key key = value.getKey();
+                ValueCodec codec = getCodec(key);
+                if (codec != null && value.get() != null) {
+                    temp.getInternal().put(getShortName(key), codec.encoder.encode(value.get()));
+                }
             }
-            error.run("This data holder does not support the key '" + key.getId() + "'!");
-            return new NullTag();
         }
+        return temp;
+    }
+
+    public static String getShortName(Key key) {
+        ensureKeys();
+        String shortName = CoreUtilities.after(CoreUtilities.toLowerCase(key.getId()), ":");
+        return keysByName.get(shortName) == key ? shortName : key.getId();
+    }
+
+    public interface TagEncoder {
+        AbstractTagObject encode(Object value);
+    }
+
+    public interface TagDecoder {
+        // Returns null (after reporting an error) if the value is invalid.
+        Object decode(AbstractTagObject value, Action<String> error);
+    }
+
+    public static class ValueCodec {
+
+        public final TagEncoder encoder;
+
+        public final TagDecoder decoder;
+
+        // Used when a supported key has no value, null to consider it an error.
+        public final Object defaultValue;
+
+        public ValueCodec(TagEncoder encoder, TagDecoder decoder, Object defaultValue) {
+            this.encoder = encoder;
+            this.decoder = decoder;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    // Codecs are resolved once per key, null marks a key whose value type isn't supported.
+    private static final HashMap<Key, Optional<ValueCodec>> codecs = new HashMap<>();
+
+    public static ValueCodec getCodec(Key key) {
+        Optional<ValueCodec> codec = codecs.get(key);
+        if (codec == null) {
+            codec = Optional.ofNullable(createCodec(key.getElementToken()));
+            codecs.put(key, codec);
+        }
+        return codec.orElse(null);
+    }
+
+    private static ValueCodec createCodec(TypeToken token) {
+        Class clazz = token.getRawType();
         if (Boolean.class.isAssignableFrom(clazz)) {
-            return new BooleanTag(dataHolder.getOrElse((Key<BaseValue<Boolean>>) key, false));
+            return new ValueCodec((v) -> new BooleanTag((Boolean) v),
+                    (v, error) -> BooleanTag.getFor(error, v).getInternal(), false);
+        }
+        else if (Rotation.class.isAssignableFrom(clazz)) {
+            return createRotationCodec();
         }
         else if (CatalogType.class.isAssignableFrom(clazz)) {
-            return new TextTag(dataHolder.getValue((Key<BaseValue<CatalogType>>) key).orElseThrow(() -> new ErrorInducedException("Value not present!")).get().getId());
+            return createCatalogCodec(clazz);
         }
         else if (Double.class.isAssignableFrom(clazz)) {
-            return new NumberTag(dataHolder.getOrElse((Key<BaseValue<Double>>) key, 0.0));
+            return new ValueCodec((v) -> new NumberTag((Double) v),
+                    (v, error) -> NumberTag.getFor(error, v).getInternal(), 0.0);
+        }
+        else if (Float.class.isAssignableFrom(clazz)) {
+            return new ValueCodec((v) -> new NumberTag((Float) v),
+                    (v, error) -> (float) NumberTag.getFor(error, v).getInternal(), 0f);
         }
         else if (Enum.class.isAssignableFrom(clazz)) {
-            return new TextTag(dataHolder.getValue((Key<BaseValue<Enum>>) key).orElseThrow(() -> new ErrorInducedException("Empty enum value!")).get().name());
+            return createEnumCodec(clazz);
         }
         else if (Integer.class.isAssignableFrom(clazz)) {
-            return new IntegerTag(dataHolder.getOrElse((Key<BaseValue<Integer>>) key, 0));
+            return new ValueCodec((v) -> new IntegerTag((Integer) v),
+                    (v, error) -> (int) IntegerTag.getFor(error, v).getInternal(), 0);
+        }
+        else if (Long.class.isAssignableFrom(clazz)) {
+            return new ValueCodec((v) -> new IntegerTag((Long) v),
+                    (v, error) -> IntegerTag.getFor(error, v).getInternal(), 0L);
+        }
+        else if (String.class.isAssignableFrom(clazz)) {
+            return new ValueCodec((v) -> new TextTag((String) v),
+                    (v, error) -> v.toString(), "");
         }
         else if (Vector3d.class.isAssignableFrom(clazz)) {
-            return new LocationTag(dataHolder.getOrElse((Key<BaseValue<Vector3d>>) key, new Vector3d(0, 0, 0)));
+            return new ValueCodec((v) -> new LocationTag((Vector3d) v),
+                    (v, error) -> LocationTag.getFor(error, v).getInternal().toVector3d(), new Vector3d(0, 0, 0));
+        }
+        else if (Vector3i.class.isAssignableFrom(clazz)) {
+            return new ValueCodec((v) -> new LocationTag(((Vector3i) v).toDouble()),
+                    (v, error) -> LocationTag.getFor(error, v).getInternal().toVector3i(), new Vector3i(0, 0, 0));
         }
         else if (Text.class.isAssignableFrom(clazz)) {
-            return new FormattedTextTag(dataHolder.getOrElse((Key<BaseValue<Text>>) key, Text.EMPTY));
+            return new ValueCodec((v) -> new FormattedTextTag((Text) v),
+                    (v, error) -> FormattedTextTag.getFor(error, v).getInternal(), Text.EMPTY);
         }
         else if (FlagMap.class.isAssignableFrom(clazz)) {
-            return new MapTag(dataHolder.getOrElse((Key<BaseValue<FlagMap>>) key, new FlagMap(new MapTag())).flags.getInternal());
+            return new ValueCodec((v) -> new MapTag(((FlagMap) v).flags.getInternal()),
+                    (v, error) -> new FlagMap(MapTag.getFor(error, v)), new FlagMap(new MapTag()));
         }
-        else {
+        else if (List.class.isAssignableFrom(clazz)) {
+            return createListCodec(token.resolveType(List.class.getTypeParameters()[0]));
+        }
+        return null;
+    }
+
+    private static ValueCodec createCatalogCodec(Class clazz) {
+        // Only successful lookups are cached, so invalid input can't grow the cache.
+        HashMap<String, CatalogType> cache = new HashMap<>();
+        return new ValueCodec((v) -> new TextTag(((CatalogType) v).getId()), (v, error) -> {
+            String val = v.toString();
+            CatalogType type = cache.get(val);
+            if (type == null) {
+                Optional<CatalogType> opt = Sponge.getRegistry().getType(clazz, val);
+                if (!opt.isPresent()) {
+                    error.run("Invalid value '" + val + "' for type '" + clazz.getSimpleName() + "'!");
+                    return null;
+                }
+                type = opt.get();
+                cache.put(val, type);
+            }
+            return type;
+        }, null);
+    }
+
+    private static ValueCodec createRotationCodec() {
+        ValueCodec catalog = createCatalogCodec(Rotation.class);
+        // Rotations may also be specified as a number of degrees.
+        return new ValueCodec(catalog.encoder, (v, error) -> {
+            if (v instanceof IntegerTag || v instanceof NumberTag) {
+                int degrees = (int) NumberTag.getFor(error, v).getInternal();
+                Optional<Rotation> rot = Rotation.fromDegrees(((degrees % 360) + 360) % 360);
+                if (!rot.isPresent()) {
+                    error.run("Invalid rotation '" + degrees + "', must be a multiple of 45 degrees!");
+                    return null;
+                }
+                return rot.get();
+            }
+            return catalog.decoder.decode(v, error);
+        }, null);
+    }
+
+    private static ValueCodec createEnumCodec(Class clazz) {
+        HashMap<String, Enum> values = new HashMap<>();
+        for (Object value : clazz.getEnumConstants()) {
+            values.put(((Enum) value).name(), (Enum) value);
+        }
+        return new ValueCodec((v) -> new TextTag(((Enum) v).name()), (v, error) -> {
+            Enum value = values.get(v.toString().toUpperCase());
+            if (value == null) {
+                error.run("Invalid value '" + v.toString() + "' for type '" + clazz.getSimpleName() + "'!");
+            }
+            return value;
+        }, null);
+    }
+
+    private static ValueCodec createListCodec(TypeToken elementToken) {
+        ValueCodec element = createCodec(elementToken);
+        if (element == null) {
+            return null;
+        }
+        return new ValueCodec((v) -> {
+            ListTag list = new ListTag();
+            for (Object obj : (List) v) {
+                list.getInternal().add(element.encoder.encode(obj));
+            }
+            return list;
+        }, (v, error) -> {
+            List<Object> result = new ArrayList<>();
+            for (AbstractTagObject obj : ListTag.getFor(error, v).getInternal()) {
+                Object decoded = element.decoder.decode(obj, error);
+                if (decoded == null) {
+                    return null;
+                }
+                result.add(decoded);
+            }
+            return result;
+        }, new ArrayList<>());
+    }
+
+    public static AbstractTagObject getValue(DataHolder dataHolder, Key key, Action<String> error) {
+        Class clazz = key.getElementToken().getRawType();
+        if (!dataHolder.supports(key)) {
+            if (FlagMap.class.isAssignableFrom(clazz)) {
+                return new MapTag();
+            }
+            error.run("This data holder does not support the key '" + key.getId() + "'!");
+            return new NullTag();
+        }
+        ValueCodec codec = getCodec(key);
+        if (codec == null) {
             error.run("The value type '" + clazz.getName() + "' is not supported yet!");
             return new NullTag();
         }
+        Optional value = dataHolder.get(key);
+        if (value.isPresent()) {
+            return codec.encoder.encode(value.get());
+        }
+        if (codec.defaultValue == null) {
+            error.run("Value not present!");
+            return new NullTag();
+        }
+        return codec.encoder.encode(codec.defaultValue);
     }
 
     public static void tryApply(DataHolder entity, Key key, AbstractTagObject value, Action<String> error) {
         Class clazz = key.getElementToken().getRawType();
+        boolean flagMap = FlagMap.class.isAssignableFrom(clazz);
         if (!entity.supports(key)) {
-            if (FlagMap.class.isAssignableFrom(clazz)) {
+            if (flagMap) {
                 entity.offer(new FlagMapDataImpl(new FlagMap(new MapTag())));
             }
             else {
@@ -124,45 +331,28 @@ public class DataKeys {
                 return;
             }
         }
-        if (Boolean.class.isAssignableFrom(clazz)) {
-            entity.offer(key, BooleanTag.getFor(error, value).getInternal());
-        }
-        else if (CatalogType.class.isAssignableFrom(clazz)) {
-            String val = value.toString();
-            Optional optCatalogType = Sponge.getRegistry().getType(clazz, val);
-            if (!optCatalogType.isPresent()) {
-                error.run("Invalid value '" + val + "' for property '" + key.getId() + "'!");
-                return;
-            }
-            entity.offer(key, optCatalogType.get());
-        }
-        else if (Double.class.isAssignableFrom(clazz)) {
-            entity.offer(key, NumberTag.getFor(error, value).getInternal());
-        }
-        else if (Enum.class.isAssignableFrom(clazz)) {
-            entity.offer(key, Enum.valueOf(clazz, value.toString().toUpperCase()));
-        }
-        else if (Integer.class.isAssignableFrom(clazz)) {
-            entity.offer(key, (int) IntegerTag.getFor(error, value).getInternal());
-        }
-        else if (Vector3d.class.isAssignableFrom(clazz)) {
-            entity.offer(key, LocationTag.getFor(error, value).getInternal().toVector3d());
+        ValueCodec codec = getCodec(key);
+        if (codec == null) {
+            error.run("The value type '" + clazz.getName() + "' is not supported yet!");
+            return;
         }
-        else if (Text.class.isAssignableFrom(clazz)) {
-            entity.offer(key, FormattedTextTag.getFor(error, value).getInternal());
+        Object decoded = codec.decoder.decode(value, error);
+        if (decoded == null) {
+            return;
         }
-        else if (FlagMap.class.isAssignableFrom(clazz)) {
-            entity.offer(new FlagMapDataImpl(new FlagMap(MapTag.getFor(error, value))));
+        if (flagMap) {
+            entity.offer(new FlagMapDataImpl((FlagMap) decoded));
         }
         else {
-            error.run("The value type '" + clazz.getName() + "' is not supported yet!");
+            entity.offer(key, decoded);
         }
     }
 
     public static ImmutableDataHolder with(ImmutableDataHolder entity, Key key, AbstractTagObject value, Action<String> error) {
         Class clazz = key.getElementToken().getRawType();
+        boolean flagMap = FlagMap.class.isAssignableFrom(clazz);
         if (!entity.supports(key)) {
-            if (FlagMap.class.isAssignableFrom(clazz)) {
+            if (flagMap) {
                 entity = (ImmutableDataHolder) entity.with(new FlagMapDataImpl(new FlagMap(new MapTag()))).get();
             }
             else {
@@ -170,39 +360,18 @@ public class DataKeys {
                 return null;
             }
         }
-        if (Boolean.class.isAssignableFrom(clazz)) {
-            return (ImmutableDataHolder) entity.with(key, BooleanTag.getFor(error, value).getInternal()).get();
-        }
-        else if (CatalogType.class.isAssignableFrom(clazz)) {
-            String val = value.toString();
-            Optional optCatalogType = Sponge.getRegistry().getType(clazz, val);
-            if (!optCatalogType.isPresent()) {
-                error.run("Invalid value '" + val + "' for property '" + key.getId() + "'!");
-                return null;
-            }
-            return (ImmutableDataHolder) entity.with(key, optCatalogType.get()).get();
-        }
-        else if (Double.class.isAssignableFrom(clazz)) {
-            return (ImmutableDataHolder) entity.with(key, NumberTag.getFor(error, value).getInternal()).get();
-        }
-        else if (Enum.class.isAssignableFrom(clazz)) {
-            return (ImmutableDataHolder) entity.with(key, Enum.valueOf(clazz, value.toString().toUpperCase())).get();
-        }
-        else if (Integer.class.isAssignableFrom(clazz)) {
-            return (ImmutableDataHolder) entity.with(key, (int) IntegerTag.getFor(error, value).getInternal()).get();
-        }
-        else if (Vector3d.class.isAssignableFrom(clazz)) {
-            return (ImmutableDataHolder) entity.with(key, LocationTag.getFor(error, value).getInternal().toVector3d()).get();
-        }
-        else if (Text.class.isAssignableFrom(clazz)) {
-            return (ImmutableDataHolder) entity.with(key, FormattedTextTag.getFor(error, value).getInternal()).get();
-        }
-        else if (FlagMap.class.isAssignableFrom(clazz)) {
-            return (ImmutableDataHolder) entity.with(new FlagMapDataImpl(new FlagMap(MapTag.getFor(error, value)))).get();
-        }
-        else {
+        ValueCodec codec = getCodec(key);
+        if (codec == null) {
             error.run("The value type '" + clazz.getName() + "' is not supported yet!");
             return null;
         }
+        Object decoded = codec.decoder.decode(value, error);
+        if (decoded == null) {
+            return null;
+        }
+        if (flagMap) {
+            return (ImmutableDataHolder) entity.with(new FlagMapDataImpl((FlagMap) decoded)).get();
+        }
+        return (ImmutableDataHolder) entity.with(key, decoded).get();
     }
 }
@@ -0,0 +1,123 @@
+package com.denizenscript.denizen2sponge.utilities;
+
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.entity.DestructEntityEvent;
+import org.spongepowered.api.event.entity.SpawnEntityEvent;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
+import org.spongepowered.api.world.World;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.UUID;
+
+public class EntityCache {
+
+    // Maps entity UUIDs to the loaded entities, without keeping them alive.
+    // Misses fall back to checking every world, and cache whatever is found.
+
+    private static class EntityReference extends WeakReference<Entity> {
+
+        public UUID id;
+
+        public EntityReference(Entity entity, ReferenceQueue<Entity> queue) {
+            super(entity, queue);
+            this.id = entity.getUniqueId();
+        }
+    }
+
+    private static final HashMap<UUID, EntityReference> entities = new HashMap<>();
+
+    private static final ReferenceQueue<Entity> collected = new ReferenceQueue<>();
+
+    public static void register() {
+        Sponge.getEventManager().registerListeners(Denizen2Sponge.instance, new EntityCache());
+    }
+
+    public static void add(Entity entity) {
+        expungeCollected();
+        entities.put(entity.getUniqueId(), new EntityReference(entity, collected));
+    }
+
+    public static void remove(UUID id) {
+        entities.remove(id);
+    }
+
+    public static Entity get(UUID id) {
+        EntityReference ref = entities.get(id);
+        if (ref != null) {
+            Entity entity = ref.get();
+            if (entity != null && !entity.isRemoved()) {
+                return entity;
+            }
+            entities.remove(id);
+        }
+        for (World world : Sponge.getServer().getWorlds()) {
+            Optional<Entity> e = world.getEntity(id);
+            if (e.isPresent()) {
+                add(e.get());
+                return e.get();
+            }
+        }
+        return null;
+    }
+
+    private static void expungeCollected() {
+        EntityReference ref;
+        while ((ref = (EntityReference) collected.poll()) != null) {
+            // Only drop the entry if it wasn't already replaced by a newer reference.
+            if (entities.get(ref.id) == ref) {
+                entities.remove(ref.id);
+            }
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntitiesSpawn(SpawnEntityEvent evt) {
+        if (evt.isCancelled()) {
+            return;
+        }
+        for (Entity entity : evt.getEntities()) {
+            add(entity);
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntityDestructed(DestructEntityEvent evt) {
+        remove(evt.getTargetEntity().getUniqueId());
+    }
+
+    @Listener(order = Order.POST)
+    public void onChunkUnloads(UnloadChunkEvent evt) {
+        for (Entity entity : evt.getTargetChunk().getEntities()) {
+            remove(entity.getUniqueId());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onWorldUnloads(UnloadWorldEvent evt) {
+        if (evt.isCancelled()) {
+            return;
+        }
+        for (Entity entity : evt.getTargetWorld().getEntities()) {
+            remove(entity.getUniqueId());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerJoins(ClientConnectionEvent.Join evt) {
+        add(evt.getTargetEntity());
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerDisconnects(ClientConnectionEvent.Disconnect evt) {
+        remove(evt.getTargetEntity().getUniqueId());
+    }
+}
@@ -0,0 +1,314 @@
+package com.denizenscript.denizen2sponge.utilities;
+
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import com.flowpowered.math.vector.Vector3d;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.entity.DestructEntityEvent;
+import org.spongepowered.api.event.entity.MoveEntityEvent;
+import org.spongepowered.api.event.entity.SpawnEntityEvent;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
+import org.spongepowered.api.world.World;
+
+import java.util.*;
+
+public class EntitySpatialIndex {
+
+    // Buckets loaded entities per world into 16x16 block columns, so radius queries only
+    // look at the columns overlapping the radius instead of asking the world for an AABB.
+    // Players are moved between buckets from the movement events. Sponge doesn't fire those
+    // for other entities, so a query first corrects the buckets of the cells it looks at, and
+    // of the cells around them, at most once per tick each. Cells nobody queries cost nothing.
+
+    public static final int CELL_SHIFT = 4;
+
+    private static class Tracked {
+
+        public Entity entity;
+
+        public WorldIndex world;
+
+        public long cell;
+
+        public Tracked(Entity entity) {
+            this.entity = entity;
+        }
+    }
+
+    private static class Cell {
+
+        public final ArrayList<Tracked> entities = new ArrayList<>();
+
+        // The last tick the entities in the cell were checked on.
+        public int checkedTick = -1;
+    }
+
+    private static class WorldIndex {
+
+        public final HashMap<Long, Cell> cells = new HashMap<>();
+    }
+
+    private static final HashMap<UUID, WorldIndex> worlds = new HashMap<>();
+
+    private static final HashMap<UUID, Tracked> tracked = new HashMap<>();
+
+    public static void register() {
+        Sponge.getEventManager().registerListeners(Denizen2Sponge.instance, new EntitySpatialIndex());
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return (((long) cellX) << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static long getCell(double x, double z) {
+        return cellKey(((int) Math.floor(x)) >> CELL_SHIFT, ((int) Math.floor(z)) >> CELL_SHIFT);
+    }
+
+    public static void update(Entity entity) {
+        update(entity, entity.getWorld(), entity.getLocation().getPosition());
+    }
+
+    public static void update(Entity entity, World world, Vector3d position) {
+        WorldIndex index = worlds.computeIfAbsent(world.getUniqueId(), (k) -> new WorldIndex());
+        long cell = getCell(position.getX(), position.getZ());
+        Tracked track = tracked.get(entity.getUniqueId());
+        if (track == null) {
+            track = new Tracked(entity);
+            tracked.put(entity.getUniqueId(), track);
+        }
+        else if (track.world == index && track.cell == cell) {
+            track.entity = entity;
+            return;
+        }
+        else {
+            unlink(track);
+        }
+        track.entity = entity;
+        track.world = index;
+        track.cell = cell;
+        index.cells.computeIfAbsent(cell, (k) -> new Cell()).entities.add(track);
+    }
+
+    public static void remove(UUID id) {
+        Tracked track = tracked.remove(id);
+        if (track != null) {
+            unlink(track);
+        }
+    }
+
+    private static void unlink(Tracked track) {
+        if (track.world == null) {
+            return;
+        }
+        Cell cell = track.world.cells.get(track.cell);
+        if (cell != null) {
+            cell.entities.remove(track);
+            if (cell.entities.isEmpty()) {
+                track.world.cells.remove(track.cell);
+            }
+        }
+        track.world = null;
+    }
+
+    // Moves the entities of a cell that left it into their current cells, and forgets those that no longer exist.
+    private static void check(WorldIndex index, long key, int now) {
+        Cell cell = index.cells.get(key);
+        if (cell == null || cell.checkedTick == now) {
+            return;
+        }
+        cell.checkedTick = now;
+        // Backwards, as entities that moved are taken out of the list.
+        for (int i = cell.entities.size() - 1; i >= 0; i--) {
+            Tracked track = cell.entities.get(i);
+            if (track.entity.isRemoved()) {
+                unlink(track);
+                tracked.remove(track.entity.getUniqueId(), track);
+            }
+            else if (!(track.entity instanceof Player)) {
+                update(track.entity);
+            }
+        }
+    }
+
+    // Returns the entities (of the given type, if any) within range of the position.
+    // If a limit above 0 is given, only the closest ones are returned, sorted by distance.
+    public static List<Entity> getNearby(World world, Vector3d position, double range, EntityType type, int limit) {
+        WorldIndex index = worlds.get(world.getUniqueId());
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        double rangeSquared = range * range;
+        int minX = ((int) Math.floor(position.getX() - range)) >> CELL_SHIFT;
+        int maxX = ((int) Math.floor(position.getX() + range)) >> CELL_SHIFT;
+        int minZ = ((int) Math.floor(position.getZ() - range)) >> CELL_SHIFT;
+        int maxZ = ((int) Math.floor(position.getZ() + range)) >> CELL_SHIFT;
+        int now = Sponge.getServer().getRunningTimeTicks();
+        // Entities that wandered in from a neighbouring cell are still listed there, so those are checked too.
+        for (int x = minX - 1; x <= maxX + 1; x++) {
+            for (int z = minZ - 1; z <= maxZ + 1; z++) {
+                check(index, cellKey(x, z), now);
+            }
+        }
+        List<Entity> found = new ArrayList<>();
+        // With a limit, the closest entities so far are kept in a heap with the furthest on top.
+        Entity[] closest = null;
+        double[] distances = null;
+        int count = 0;
+        if (limit > 0) {
+            closest = new Entity[Math.min(limit, 16)];
+            distances = new double[closest.length];
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                Cell cell = index.cells.get(cellKey(x, z));
+                if (cell == null) {
+                    continue;
+                }
+                for (Tracked track : cell.entities) {
+                    Entity entity = track.entity;
+                    if (type != null && !entity.getType().equals(type)) {
+                        continue;
+                    }
+                    double distanceSquared = entity.getLocation().getPosition().distanceSquared(position);
+                    if (distanceSquared >= rangeSquared) {
+                        continue;
+                    }
+                    if (limit <= 0) {
+                        found.add(entity);
+                    }
+                    else if (count < limit) {
+                        if (count == closest.length) {
+                            int capacity = (int) Math.min(limit, count * 2L);
+                            closest = Arrays.copyOf(closest, capacity);
+                            distances = Arrays.copyOf(distances, capacity);
+                        }
+                        closest[count] = entity;
+                        distances[count] = distanceSquared;
+                        siftUp(closest, distances, count++);
+                    }
+                    else if (distanceSquared < distances[0]) {
+                        closest[0] = entity;
+                        distances[0] = distanceSquared;
+                        siftDown(closest, distances, 0, count);
+                    }
+                }
+            }
+        }
+        if (limit <= 0) {
+            return found;
+        }
+        // Taking the furthest off the heap each time fills the result from the back.
+        Entity[] sorted = new Entity[count];
+        while (count > 0) {
+            sorted[--count] = closest[0];
+            closest[0] = closest[count];
+            distances[0] = distances[count];
+            siftDown(closest, distances, 0, count);
+        }
+        return Arrays.asList(sorted);
+    }
+
+    private static void siftUp(Entity[] heap, double[] distances, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (distances[parent] >= distances[i]) {
+                return;
+            }
+            swap(heap, distances, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(Entity[] heap, double[] distances, int i, int size) {
+        while (true) {
+            int largest = i;
+            int left = i * 2 + 1;
+            int right = left + 1;
+            if (left < size && distances[left] > distances[largest]) {
+                largest = left;
+            }
+            if (right < size && distances[right] > distances[largest]) {
+                largest = right;
+            }
+            if (largest == i) {
+                return;
+            }
+            swap(heap, distances, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(Entity[] heap, double[] distances, int a, int b) {
+        Entity entity = heap[a];
+        heap[a] = heap[b];
+        heap[b] = entity;
+        double distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+    }
+
+    public static Entity getNearest(World world, Vector3d position, double range, EntityType type) {
+        List<Entity> nearest = getNearby(world, position, range, type, 1);
+        return nearest.isEmpty() ? null : nearest.get(0);
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntitiesSpawn(SpawnEntityEvent evt) {
+        if (evt.isCancelled()) {
+            return;
+        }
+        for (Entity entity : evt.getEntities()) {
+            update(entity);
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntityMoves(MoveEntityEvent evt) {
+        if (evt.isCancelled()) {
+            return;
+        }
+        update(evt.getTargetEntity(), evt.getToTransform().getExtent(), evt.getToTransform().getPosition());
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntityDestructed(DestructEntityEvent evt) {
+        // Players keep existing through death, they are handled by connection events instead.
+        if (!(evt.getTargetEntity() instanceof Player)) {
+            remove(evt.getTargetEntity().getUniqueId());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onChunkUnloads(UnloadChunkEvent evt) {
+        for (Entity entity : evt.getTargetChunk().getEntities()) {
+            remove(entity.getUniqueId());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onWorldUnloads(UnloadWorldEvent evt) {
+        if (evt.isCancelled()) {
+            return;
+        }
+        for (Entity entity : evt.getTargetWorld().getEntities()) {
+            remove(entity.getUniqueId());
+        }
+        worlds.remove(evt.getTargetWorld().getUniqueId());
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerJoins(ClientConnectionEvent.Join evt) {
+        update(evt.getTargetEntity());
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerDisconnects(ClientConnectionEvent.Disconnect evt) {
+        remove(evt.getTargetEntity().getUniqueId());
+    }
+}
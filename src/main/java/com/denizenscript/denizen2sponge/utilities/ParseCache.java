@@ -0,0 +1,75 @@
+package com.denizenscript.denizen2sponge.utilities;
+
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.api.world.World;
+
+import java.util.*;
+import java.util.function.Function;
+
+public class ParseCache<T> {
+
+    // A bounded least-recently-used cache of parsed values, keyed by their exact input text.
+    // Cached values must never be handed out directly if they're mutable, only copies of them.
+
+    private static final List<ParseCache> caches = new ArrayList<>();
+
+    public static final ParseCache<UtilLocation> LOCATIONS = new ParseCache<>(4096, (loc) -> loc.world);
+
+    public static final ParseCache<UtilCuboid> CUBOIDS = new ParseCache<>(1024, (cuboid) -> cuboid.min.world);
+
+    public static final ParseCache<World> WORLDS = new ParseCache<>(256, (world) -> world);
+
+    private final Map<String, T> cache;
+
+    private final Function<T, World> worldOf;
+
+    public ParseCache(int size, Function<T, World> worldOf) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, T>(size, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > size;
+            }
+        });
+        this.worldOf = worldOf;
+        synchronized (caches) {
+            caches.add(this);
+        }
+    }
+
+    public static void register() {
+        Sponge.getEventManager().registerListeners(Denizen2Sponge.instance, new Listeners());
+    }
+
+    public T get(String text) {
+        return cache.get(text);
+    }
+
+    public void put(String text, T value) {
+        cache.put(text, value);
+    }
+
+    public void invalidate(World world) {
+        synchronized (cache) {
+            cache.values().removeIf((value) -> worldOf.apply(value) == world);
+        }
+    }
+
+    public static class Listeners {
+
+        @Listener(order = Order.POST)
+        public void onWorldUnloads(UnloadWorldEvent evt) {
+            if (evt.isCancelled()) {
+                return;
+            }
+            synchronized (caches) {
+                for (ParseCache cache : caches) {
+                    cache.invalidate(evt.getTargetWorld());
+                }
+            }
+        }
+    }
+}
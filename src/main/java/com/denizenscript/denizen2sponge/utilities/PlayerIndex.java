@@ -0,0 +1,133 @@
+package com.denizenscript.denizen2sponge.utilities;
+
+import com.denizenscript.denizen2core.utilities.CoreUtilities;
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.entity.living.humanoid.player.RespawnPlayerEvent;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
+
+import java.util.*;
+
+public class PlayerIndex {
+
+    // Online players by UUID and by lowercased name. The sorted name map allows
+    // partial names to be resolved by looking up the range of names sharing a prefix.
+    // Respawning or changing dimension replaces a player's entity, so entries are refreshed
+    // on respawn, and any entry found removed is looked up again before being returned.
+
+    private static final HashMap<UUID, Player> byId = new HashMap<>();
+
+    private static final HashMap<String, Player> byName = new HashMap<>();
+
+    private static final TreeMap<String, Player> byNamePrefix = new TreeMap<>();
+
+    public static void register() {
+        Sponge.getEventManager().registerListeners(Denizen2Sponge.instance, new PlayerIndex());
+    }
+
+    public static void add(Player player) {
+        String name = CoreUtilities.toLowerCase(player.getName());
+        byId.put(player.getUniqueId(), player);
+        byName.put(name, player);
+        byNamePrefix.put(name, player);
+    }
+
+    public static void remove(Player player) {
+        String name = CoreUtilities.toLowerCase(player.getName());
+        byId.remove(player.getUniqueId());
+        byName.remove(name);
+        byNamePrefix.remove(name);
+    }
+
+    // Returns the current entity of an indexed player, refreshing the entry if it was replaced.
+    private static Player current(Player player) {
+        if (!player.isRemoved()) {
+            return player;
+        }
+        remove(player);
+        Optional<Player> opt = Sponge.getServer().getPlayer(player.getUniqueId());
+        if (opt.isPresent()) {
+            add(opt.get());
+            return opt.get();
+        }
+        return null;
+    }
+
+    public static Player getById(UUID id) {
+        Player player = byId.get(id);
+        if (player != null) {
+            return current(player);
+        }
+        Optional<Player> opt = Sponge.getServer().getPlayer(id);
+        if (opt.isPresent()) {
+            add(opt.get());
+            return opt.get();
+        }
+        return null;
+    }
+
+    public static Player getByName(String name) {
+        Player player = byName.get(CoreUtilities.toLowerCase(name));
+        if (player != null) {
+            return current(player);
+        }
+        Optional<Player> opt = Sponge.getServer().getPlayer(name);
+        if (opt.isPresent()) {
+            add(opt.get());
+            return opt.get();
+        }
+        return null;
+    }
+
+    public static List<Player> getByPrefix(String prefix) {
+        String low = CoreUtilities.toLowerCase(prefix);
+        // Every name starting with the prefix sorts between the prefix itself and the prefix followed by the highest char.
+        List<Player> players = new ArrayList<>(byNamePrefix.subMap(low, true, low + Character.MAX_VALUE, false).values());
+        List<Player> result = new ArrayList<>(players.size());
+        for (Player player : players) {
+            Player found = current(player);
+            if (found != null) {
+                result.add(found);
+            }
+        }
+        return result;
+    }
+
+    public static Player match(String name) {
+        Player player = getByName(name);
+        if (player != null) {
+            return player;
+        }
+        List<Player> matches = getByPrefix(name);
+        if (matches.isEmpty()) {
+            return null;
+        }
+        // Prefer the closest (shortest) name matching the input.
+        Player best = matches.get(0);
+        for (Player match : matches) {
+            if (match.getName().length() < best.getName().length()) {
+                best = match;
+            }
+        }
+        return best;
+    }
+
+    @Listener(order = Order.FIRST)
+    public void onPlayerJoins(ClientConnectionEvent.Join evt) {
+        add(evt.getTargetEntity());
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerRespawns(RespawnPlayerEvent evt) {
+        remove(evt.getOriginalPlayer());
+        add(evt.getTargetEntity());
+    }
+
+    @Listener(order = Order.LAST)
+    public void onPlayerDisconnects(ClientConnectionEvent.Disconnect evt) {
+        remove(evt.getTargetEntity());
+    }
+}
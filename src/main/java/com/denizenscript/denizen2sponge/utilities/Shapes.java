@@ -0,0 +1,173 @@
+package com.denizenscript.denizen2sponge.utilities;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
+
+public class Shapes {
+
+    // Generators for the points of common shapes. Points are computed from their index
+    // when requested, so a shape never has to be stored. Each factory returns null instead
+    // if the shape would have more than the given number of points.
+
+    public interface PointGenerator {
+
+        int size();
+
+        // Writes the x, y and z of the point at the index into the array.
+        void get(int index, double[] out);
+    }
+
+    // How far apart the points of curves and surfaces are, roughly.
+    public static final double SPACING = 0.5;
+
+    // The number of points to spread over a length, or -1 if more than the limit.
+    private static int countFor(double length, int limit, int extra) {
+        double count = Math.max(1, Math.ceil(length / SPACING)) + extra;
+        return count <= limit ? (int) count : -1;
+    }
+
+    public static PointGenerator line(Vector3d from, Vector3d to, int limit) {
+        Vector3d diff = to.sub(from);
+        int count = countFor(diff.length(), limit, 1);
+        if (count < 0) {
+            return null;
+        }
+        return new PointGenerator() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public void get(int index, double[] out) {
+                double t = (double) index / (count - 1);
+                out[0] = from.getX() + diff.getX() * t;
+                out[1] = from.getY() + diff.getY() * t;
+                out[2] = from.getZ() + diff.getZ() * t;
+            }
+        };
+    }
+
+    // A horizontal circle around the center.
+    public static PointGenerator circle(Vector3d center, double radius, int limit) {
+        int count = countFor(Math.PI * 2 * radius, limit, 0);
+        if (count < 0) {
+            return null;
+        }
+        return new PointGenerator() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public void get(int index, double[] out) {
+                double angle = Math.PI * 2 * index / count;
+                out[0] = center.getX() + Math.cos(angle) * radius;
+                out[1] = center.getY();
+                out[2] = center.getZ() + Math.sin(angle) * radius;
+            }
+        };
+    }
+
+    // Points spread evenly over the surface of a sphere, along a spiral.
+    public static PointGenerator sphere(Vector3d center, double radius, int limit) {
+        int count = countFor(Math.PI * 4 * radius * radius / SPACING, limit, 0);
+        if (count < 0) {
+            return null;
+        }
+        double goldenAngle = Math.PI * (3 - Math.sqrt(5));
+        return new PointGenerator() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public void get(int index, double[] out) {
+                double y = 1 - 2 * (index + 0.5) / count;
+                double ring = Math.sqrt(1 - y * y);
+                double angle = goldenAngle * index;
+                out[0] = center.getX() + Math.cos(angle) * ring * radius;
+                out[1] = center.getY() + y * radius;
+                out[2] = center.getZ() + Math.sin(angle) * ring * radius;
+            }
+        };
+    }
+
+    // A spiral going up from the base, around the vertical axis through it.
+    public static PointGenerator helix(Vector3d base, double radius, double height, double turns, int limit) {
+        double around = Math.PI * 2 * radius * turns;
+        int count = countFor(Math.sqrt(around * around + height * height), limit, 1);
+        if (count < 0) {
+            return null;
+        }
+        return new PointGenerator() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public void get(int index, double[] out) {
+                double t = (double) index / (count - 1);
+                double angle = Math.PI * 2 * turns * t;
+                out[0] = base.getX() + Math.cos(angle) * radius;
+                out[1] = base.getY() + height * t;
+                out[2] = base.getZ() + Math.sin(angle) * radius;
+            }
+        };
+    }
+
+    // The blocks on the faces of a block region, layer by layer along the x axis.
+    public static PointGenerator shell(Vector3i min, Vector3i max, int limit) {
+        // Sizes are worked out as longs, as the region may be far larger than the limit.
+        long longSizeX = (long) max.getX() - min.getX() + 1;
+        long longSizeY = (long) max.getY() - min.getY() + 1;
+        long longSizeZ = (long) max.getZ() - min.getZ() + 1;
+        long longLayer = longSizeY * longSizeZ;
+        long longRing = longSizeZ * Math.min(longSizeY, 2) + Math.max(0, longSizeY - 2) * Math.min(longSizeZ, 2);
+        long total = longSizeX == 1 ? longLayer : 2 * longLayer + Math.max(0, longSizeX - 2) * longRing;
+        if (total > limit) {
+            return null;
+        }
+        int sizeY = (int) longSizeY;
+        int sizeZ = (int) longSizeZ;
+        int layer = (int) longLayer;
+        // The middle layers only hold the edges of the region: the full bottom and top rows, then the two ends of each row between.
+        int edgeRows = Math.min(sizeY, 2);
+        int perMiddleRow = Math.min(sizeZ, 2);
+        int ring = (int) longRing;
+        int middleLayers = (int) Math.max(0, longSizeX - 2);
+        int count = (int) total;
+        return new PointGenerator() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public void get(int index, double[] out) {
+                if (index < layer || index >= layer + middleLayers * ring) {
+                    int inLayer = index < layer ? index : index - layer - middleLayers * ring;
+                    out[0] = index < layer ? min.getX() : max.getX();
+                    out[1] = min.getY() + inLayer / sizeZ;
+                    out[2] = min.getZ() + inLayer % sizeZ;
+                    return;
+                }
+                int inMiddle = index - layer;
+                int inRing = inMiddle % ring;
+                out[0] = min.getX() + 1 + inMiddle / ring;
+                if (inRing < sizeZ * edgeRows) {
+                    out[1] = inRing < sizeZ ? min.getY() : max.getY();
+                    out[2] = min.getZ() + inRing % sizeZ;
+                }
+                else {
+                    int inRows = inRing - sizeZ * edgeRows;
+                    out[1] = min.getY() + 1 + inRows / perMiddleRow;
+                    out[2] = inRows % perMiddleRow == 0 ? min.getZ() : max.getZ();
+                }
+            }
+        };
+    }
+}
@@ -30,6 +30,10 @@ public class UtilLocation {
         world = _w;
     }
 
+    public UtilLocation copy() {
+        return new UtilLocation(x, y, z, world);
+    }
+
     public Vector3d toVector3d() {
         return new Vector3d(x, y, z);
     }
@@ -39,14 +39,32 @@ public class Utilities {
         return b;
     }
 
+    public static boolean isUUID(String text) {
+        if (text.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = text.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            }
+            else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static String getIdWithoutDefaultPrefix(String id) {
-        if (id.startsWith("minecraft")) {
+        if (id.startsWith("minecraft:")) {
             return id.substring("minecraft:".length());
         }
-        if (id.startsWith("sponge")) {
+        if (id.startsWith("sponge:")) {
             return id.substring("sponge:".length());
         }
-        if (id.startsWith("denizen2sponge")) {
+        if (id.startsWith("denizen2sponge:")) {
             return id.substring("denizen2sponge:".length());
         }
         return id;
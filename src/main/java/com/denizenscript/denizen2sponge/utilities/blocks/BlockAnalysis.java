@@ -0,0 +1,162 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2sponge.tags.objects.LocationListTag;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class BlockAnalysis {
+
+    // Read-only queries over immutable block copies. These never touch the world,
+    // so they are safe to run off the main thread.
+
+    public static IdentityHashMap<BlockType, long[]> histogram(BlockColumnCopy copy) {
+        IdentityHashMap<BlockType, long[]> counts = new IdentityHashMap<>();
+        for (int i = 0; i < copy.getColumnCount(); i++) {
+            addToHistogram(copy.getColumn(i), null, counts);
+        }
+        return counts;
+    }
+
+    // Counts the blocks of a region of a world one chunk column at a time, so only one column
+    // is ever copied at once. If types are given, only those are counted, starting at 0.
+    public static IdentityHashMap<BlockType, long[]> histogram(World world, Vector3i min, Vector3i max, Set<BlockType> types) {
+        IdentityHashMap<BlockType, long[]> counts = new IdentityHashMap<>();
+        if (types != null) {
+            for (BlockType type : types) {
+                counts.put(type, new long[1]);
+            }
+        }
+        Vector3i[] bounds = BlockVolumes.clamp(world, min, max);
+        if (bounds == null) {
+            return counts;
+        }
+        min = bounds[0];
+        max = bounds[1];
+        for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; chunkX++) {
+            for (int chunkZ = min.getZ() >> 4; chunkZ <= max.getZ() >> 4; chunkZ++) {
+                Vector3i columnMin = new Vector3i(Math.max(min.getX(), chunkX << 4), min.getY(), Math.max(min.getZ(), chunkZ << 4));
+                Vector3i columnMax = new Vector3i(Math.min(max.getX(), (chunkX << 4) + 15), max.getY(), Math.min(max.getZ(), (chunkZ << 4) + 15));
+                addToHistogram(world.getBlockView(columnMin, columnMax).getImmutableBlockCopy(), types, counts);
+            }
+        }
+        return counts;
+    }
+
+    private static void addToHistogram(ImmutableBlockVolume volume, Set<BlockType> types, IdentityHashMap<BlockType, long[]> counts) {
+        Vector3i min = volume.getBlockMin();
+        Vector3i max = volume.getBlockMax();
+        BlockType last = null;
+        long[] lastCount = null;
+        for (int x = min.getX(); x <= max.getX(); x++) {
+            for (int y = min.getY(); y <= max.getY(); y++) {
+                for (int z = min.getZ(); z <= max.getZ(); z++) {
+                    BlockType type = volume.getBlockType(x, y, z);
+                    // Neighbouring blocks are usually the same type, so skip the lookup when they are.
+                    if (type != last) {
+                        last = type;
+                        lastCount = types == null ? counts.computeIfAbsent(type, (k) -> new long[1]) : counts.get(type);
+                    }
+                    if (lastCount != null) {
+                        lastCount[0]++;
+                    }
+                }
+            }
+        }
+    }
+
+    public static MapTag histogramToMap(Map<BlockType, long[]> counts) {
+        MapTag result = new MapTag();
+        for (Map.Entry<BlockType, long[]> entry : counts.entrySet()) {
+            result.getInternal().put(entry.getKey().getId(), new IntegerTag(entry.getValue()[0]));
+        }
+        return result;
+    }
+
+    public static long count(BlockColumnCopy copy, Set<BlockType> types) {
+        long count = 0;
+        for (int i = 0; i < copy.getColumnCount(); i++) {
+            ImmutableBlockVolume volume = copy.getColumn(i);
+            Vector3i min = volume.getBlockMin();
+            Vector3i max = volume.getBlockMax();
+            for (int x = min.getX(); x <= max.getX(); x++) {
+                for (int y = min.getY(); y <= max.getY(); y++) {
+                    for (int z = min.getZ(); z <= max.getZ(); z++) {
+                        if (types.contains(volume.getBlockType(x, y, z))) {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // Locations are listed chunk column by chunk column.
+    public static LocationListTag find(BlockColumnCopy copy, Set<BlockType> types) {
+        LocationListTag result = new LocationListTag(copy.world);
+        for (int i = 0; i < copy.getColumnCount(); i++) {
+            ImmutableBlockVolume volume = copy.getColumn(i);
+            Vector3i min = volume.getBlockMin();
+            Vector3i max = volume.getBlockMax();
+            for (int x = min.getX(); x <= max.getX(); x++) {
+                for (int y = min.getY(); y <= max.getY(); y++) {
+                    for (int z = min.getZ(); z <= max.getZ(); z++) {
+                        if (types.contains(volume.getBlockType(x, y, z))) {
+                            result.add(x, y, z);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Finds every location where each offset of the pattern holds its block type.
+    // Locations for which part of the pattern falls outside of the copy never match.
+    public static LocationListTag match(BlockColumnCopy copy, Map<Vector3i, BlockType> pattern) {
+        Vector3i min = copy.getBlockMin();
+        Vector3i max = copy.getBlockMax();
+        LocationListTag result = new LocationListTag(copy.world);
+        if (pattern.isEmpty()) {
+            return result;
+        }
+        Vector3i lowest = null;
+        Vector3i highest = null;
+        for (Vector3i offset : pattern.keySet()) {
+            lowest = lowest == null ? offset : lowest.min(offset);
+            highest = highest == null ? offset : highest.max(offset);
+        }
+        Vector3i start = min.sub(lowest);
+        Vector3i end = max.sub(highest);
+        Vector3i[] offsets = pattern.keySet().toArray(new Vector3i[0]);
+        BlockType[] types = new BlockType[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            types[i] = pattern.get(offsets[i]);
+        }
+        for (int x = start.getX(); x <= end.getX(); x++) {
+            for (int y = start.getY(); y <= end.getY(); y++) {
+                for (int z = start.getZ(); z <= end.getZ(); z++) {
+                    boolean matches = true;
+                    for (int i = 0; i < offsets.length; i++) {
+                        if (copy.getBlockType(x + offsets[i].getX(), y + offsets[i].getY(), z + offsets[i].getZ()) != types[i]) {
+                            matches = false;
+                            break;
+                        }
+                    }
+                    if (matches) {
+                        result.add(x, y, z);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
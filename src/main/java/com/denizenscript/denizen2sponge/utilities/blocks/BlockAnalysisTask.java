@@ -0,0 +1,72 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.NullTag;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public class BlockAnalysisTask implements BlockTask {
+
+    // Copies a region a chunk column at a time within the block budgets, then runs a query
+    // over the finished copy on a worker thread. The task is only seen as done by the scheduler
+    // on the tick after the query finishes, so its result is always handed back to scripts
+    // on the main thread.
+
+    private final BlockColumnCopy copy;
+
+    private final Function<BlockColumnCopy, AbstractTagObject> query;
+
+    // Null until the copy is complete.
+    public CompletableFuture<AbstractTagObject> analysis;
+
+    private AbstractTagObject result;
+
+    public BlockAnalysisTask(BlockColumnCopy copy, Function<BlockColumnCopy, AbstractTagObject> query) {
+        this.copy = copy;
+        this.query = query;
+    }
+
+    @Override
+    public long work(long budget, long deadline) {
+        long done = 0;
+        // A column may hold more blocks than a task's share of the budget, so at least one is copied each time.
+        while (!copy.isComplete() && (done == 0 || (done < budget && System.nanoTime() < deadline))) {
+            done += copy.copyNext();
+        }
+        if (copy.isComplete() && analysis == null) {
+            analysis = CompletableFuture.supplyAsync(() -> query.apply(copy), BlockTaskScheduler.getAsyncExecutor());
+        }
+        return done;
+    }
+
+    @Override
+    public boolean isDone() {
+        return analysis != null && analysis.isDone();
+    }
+
+    @Override
+    public double getProgress() {
+        // Copying is counted as the first half, as the analysis itself can't report progress.
+        return isDone() ? 1.0 : 0.5 * copy.getCopied() / copy.getColumnCount();
+    }
+
+    @Override
+    public AbstractTagObject getResult() {
+        if (!isDone()) {
+            return new NullTag();
+        }
+        if (result == null) {
+            try {
+                result = analysis.join();
+            }
+            catch (Exception ex) {
+                Debug.error("Block analysis failed!");
+                Debug.exception(ex);
+                result = new NullTag();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
+
+public class BlockColumnCopy {
+
+    // An immutable copy of a region of a world, made one chunk column at a time so the copying
+    // can be spread over several ticks. Once complete it never touches the world, so it is safe
+    // to read off the main thread.
+
+    public final World world;
+
+    private final Vector3i min;
+
+    private final Vector3i max;
+
+    private final int minChunkX, minChunkZ, chunksZ;
+
+    private final ImmutableBlockVolume[] columns;
+
+    private int copied = 0;
+
+    // The region must already be clamped to the world.
+    public BlockColumnCopy(World world, Vector3i min, Vector3i max) {
+        this.world = world;
+        this.min = min;
+        this.max = max;
+        minChunkX = min.getX() >> 4;
+        minChunkZ = min.getZ() >> 4;
+        chunksZ = (max.getZ() >> 4) - minChunkZ + 1;
+        columns = new ImmutableBlockVolume[((max.getX() >> 4) - minChunkX + 1) * chunksZ];
+    }
+
+    public Vector3i getBlockMin() {
+        return min;
+    }
+
+    public Vector3i getBlockMax() {
+        return max;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public int getCopied() {
+        return copied;
+    }
+
+    public boolean isComplete() {
+        return copied == columns.length;
+    }
+
+    // Copies the next chunk column of the region, returning how many blocks it holds.
+    public long copyNext() {
+        int chunkX = minChunkX + copied / chunksZ;
+        int chunkZ = minChunkZ + copied % chunksZ;
+        Vector3i columnMin = new Vector3i(Math.max(min.getX(), chunkX << 4), min.getY(), Math.max(min.getZ(), chunkZ << 4));
+        Vector3i columnMax = new Vector3i(Math.min(max.getX(), (chunkX << 4) + 15), max.getY(), Math.min(max.getZ(), (chunkZ << 4) + 15));
+        columns[copied++] = world.getBlockView(columnMin, columnMax).getImmutableBlockCopy();
+        Vector3i size = columnMax.sub(columnMin).add(1, 1, 1);
+        return (long) size.getX() * size.getY() * size.getZ();
+    }
+
+    // The columns are only all present once the copy is complete.
+    public ImmutableBlockVolume getColumn(int index) {
+        return columns[index];
+    }
+
+    public BlockType getBlockType(int x, int y, int z) {
+        return columns[((x >> 4) - minChunkX) * chunksZ + ((z >> 4) - minChunkZ)].getBlockType(x, y, z);
+    }
+}
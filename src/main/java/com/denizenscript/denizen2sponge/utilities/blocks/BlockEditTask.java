@@ -0,0 +1,222 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2sponge.tags.objects.LocationListTag;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.BlockChangeFlag;
+import org.spongepowered.api.world.BlockChangeFlags;
+import org.spongepowered.api.world.World;
+
+import java.util.*;
+
+public class BlockEditTask implements BlockTask {
+
+    // Applies a batch of block changes a slice at a time. Changes are grouped by chunk before
+    // being applied, and with physics enabled only the changes on the surface of the edited
+    // area cause block updates, after everything else has been placed.
+
+    // Each edit is stored as: world index, x, y, z, state index.
+    private static final int FIELDS = 5;
+
+    private final ArrayList<World> worlds = new ArrayList<>();
+
+    private final IdentityHashMap<World, Integer> worldIds = new IdentityHashMap<>();
+
+    private final ArrayList<BlockState> states = new ArrayList<>();
+
+    private final HashMap<BlockState, Integer> stateIds = new HashMap<>();
+
+    private int[] edits = new int[FIELDS * 64];
+
+    private int count = 0;
+
+    public final boolean physics;
+
+    // Records the blocks being replaced, if set.
+    public BlockUndoBuffer undo;
+
+    private boolean prepared = false;
+
+    // Sorted packed positions of the edits in each world, used to find the surface of the edited area.
+    private long[][] positions;
+
+    private int next = 0;
+
+    private int[] deferred;
+
+    private int deferredCount = 0;
+
+    private int deferredNext = 0;
+
+    private long applied = 0;
+
+    public BlockEditTask(boolean physics) {
+        this.physics = physics;
+    }
+
+    public void add(World world, int x, int y, int z, BlockState state) {
+        if (prepared) {
+            throw new IllegalStateException("Cannot add blocks to an edit that has already started.");
+        }
+        Integer worldId = worldIds.get(world);
+        if (worldId == null) {
+            worldId = worlds.size();
+            worlds.add(world);
+            worldIds.put(world, worldId);
+        }
+        Integer stateId = stateIds.get(state);
+        if (stateId == null) {
+            stateId = states.size();
+            states.add(state);
+            stateIds.put(state, stateId);
+        }
+        if ((count + 1) * FIELDS > edits.length) {
+            edits = Arrays.copyOf(edits, edits.length * 2);
+        }
+        int i = count * FIELDS;
+        edits[i] = worldId;
+        edits[i + 1] = x;
+        edits[i + 2] = y;
+        edits[i + 3] = z;
+        edits[i + 4] = stateId;
+        count++;
+    }
+
+    public void add(LocationListTag locations, BlockState state) {
+        World world = locations.getWorld();
+        int size = locations.size();
+        for (int i = 0; i < size; i++) {
+            add(world, locations.getX(i), locations.getY(i), locations.getZ(i), state);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private static long chunkKey(int world, int x, int z) {
+        return ((long) world << 56) | ((long) ((x >> 4) & 0xFFFFFFF) << 28) | ((z >> 4) & 0xFFFFFFF);
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    private void prepare() {
+        prepared = true;
+        // Count the edits in each chunk, then lay them out chunk by chunk, keeping their order within a chunk.
+        TreeMap<Long, int[]> chunks = new TreeMap<>();
+        for (int i = 0; i < count * FIELDS; i += FIELDS) {
+            chunks.computeIfAbsent(chunkKey(edits[i], edits[i + 1], edits[i + 3]), (k) -> new int[1])[0]++;
+        }
+        int offset = 0;
+        for (int[] chunk : chunks.values()) {
+            int size = chunk[0];
+            chunk[0] = offset;
+            offset += size;
+        }
+        int[] grouped = new int[count * FIELDS];
+        for (int i = 0; i < count * FIELDS; i += FIELDS) {
+            int[] chunk = chunks.get(chunkKey(edits[i], edits[i + 1], edits[i + 3]));
+            System.arraycopy(edits, i, grouped, chunk[0]++ * FIELDS, FIELDS);
+        }
+        edits = grouped;
+        if (!physics) {
+            return;
+        }
+        int[] sizes = new int[worlds.size()];
+        for (int i = 0; i < count * FIELDS; i += FIELDS) {
+            sizes[edits[i]]++;
+        }
+        positions = new long[worlds.size()][];
+        for (int w = 0; w < sizes.length; w++) {
+            positions[w] = new long[sizes[w]];
+            sizes[w] = 0;
+        }
+        for (int i = 0; i < count * FIELDS; i += FIELDS) {
+            positions[edits[i]][sizes[edits[i]]++] = pack(edits[i + 1], edits[i + 2], edits[i + 3]);
+        }
+        for (long[] list : positions) {
+            Arrays.sort(list);
+        }
+        deferred = new int[16];
+    }
+
+    private boolean isEdited(int world, int x, int y, int z) {
+        return Arrays.binarySearch(positions[world], pack(x, y, z)) >= 0;
+    }
+
+    private boolean isSurface(int i) {
+        int w = edits[i];
+        int x = edits[i + 1];
+        int y = edits[i + 2];
+        int z = edits[i + 3];
+        return !isEdited(w, x + 1, y, z) || !isEdited(w, x - 1, y, z)
+                || !isEdited(w, x, y + 1, z) || !isEdited(w, x, y - 1, z)
+                || !isEdited(w, x, y, z + 1) || !isEdited(w, x, y, z - 1);
+    }
+
+    private void apply(int i, BlockChangeFlag flag) {
+        World world = worlds.get(edits[i]);
+        if (undo != null) {
+            undo.record(world, edits[i + 1], edits[i + 2], edits[i + 3], world.getBlock(edits[i + 1], edits[i + 2], edits[i + 3]));
+        }
+        world.setBlock(edits[i + 1], edits[i + 2], edits[i + 3], states.get(edits[i + 4]), flag);
+        HeightmapCache.invalidate(world, edits[i + 1], edits[i + 3]);
+        applied++;
+    }
+
+    private void step() {
+        if (next < count) {
+            int i = next++ * FIELDS;
+            // Blocks fully surrounded by other edits have nothing to update that isn't about to change anyway,
+            // so only the surface is placed with physics, once the rest of the edit is in place.
+            if (physics && isSurface(i)) {
+                if (deferredCount == deferred.length) {
+                    deferred = Arrays.copyOf(deferred, deferredCount * 2);
+                }
+                deferred[deferredCount++] = i;
+                return;
+            }
+            apply(i, BlockChangeFlags.NONE);
+        }
+        else {
+            apply(deferred[deferredNext++], BlockChangeFlags.ALL);
+        }
+    }
+
+    @Override
+    public long work(long budget, long deadline) {
+        if (!prepared) {
+            prepare();
+        }
+        long done = 0;
+        while (!isDone() && done < budget && System.nanoTime() < deadline) {
+            long sliceEnd = Math.min(budget, done + BlockTaskScheduler.SLICE);
+            while (!isDone() && done < sliceEnd) {
+                step();
+                done++;
+            }
+        }
+        return done;
+    }
+
+    @Override
+    public boolean isDone() {
+        return next >= count && deferredNext >= deferredCount;
+    }
+
+    @Override
+    public double getProgress() {
+        if (isDone()) {
+            return 1.0;
+        }
+        return (double) (next + deferredNext) / (count + deferredCount);
+    }
+
+    @Override
+    public AbstractTagObject getResult() {
+        return new IntegerTag(applied);
+    }
+}
@@ -0,0 +1,113 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.BlockChangeFlag;
+import org.spongepowered.api.world.BlockChangeFlags;
+
+import java.util.Arrays;
+
+public class BlockFillTask implements BlockTask {
+
+    // Fills a region with a block state straight from a block scan, without ever listing
+    // the region's locations. When replacing, only blocks matching the scan's types change.
+    // With physics enabled, a full fill places the blocks on the faces of the region with
+    // physics after everything inside it, while a replace updates every block it changes.
+
+    public BlockScan scan;
+
+    public BlockState state;
+
+    public boolean physics;
+
+    // Records the blocks being replaced, if set.
+    public BlockUndoBuffer undo;
+
+    private int[] deferred;
+
+    private int deferredCount = 0;
+
+    private int deferredNext = 0;
+
+    private long changed = 0;
+
+    public BlockFillTask(BlockScan scan, BlockState state, boolean physics) {
+        this.scan = scan;
+        this.state = state;
+        this.physics = physics;
+        if (physics && scan.types == null) {
+            deferred = new int[48];
+        }
+    }
+
+    private boolean isFace(int x, int y, int z) {
+        Vector3i min = scan.getMin();
+        Vector3i max = scan.getMax();
+        return x == min.getX() || y == min.getY() || z == min.getZ()
+                || x == max.getX() || y == max.getY() || z == max.getZ();
+    }
+
+    private void place(int x, int y, int z) {
+        if (deferred != null && isFace(x, y, z)) {
+            if (deferredCount + 3 > deferred.length) {
+                deferred = Arrays.copyOf(deferred, deferred.length * 2);
+            }
+            deferred[deferredCount++] = x;
+            deferred[deferredCount++] = y;
+            deferred[deferredCount++] = z;
+            return;
+        }
+        set(x, y, z, physics && deferred == null ? BlockChangeFlags.ALL : BlockChangeFlags.NONE);
+    }
+
+    private void set(int x, int y, int z, BlockChangeFlag flag) {
+        // The block is recorded as it is now, as it may have changed since the scan copied its column.
+        if (undo != null) {
+            undo.record(scan.world, x, y, z, scan.world.getBlock(x, y, z));
+        }
+        scan.world.setBlock(x, y, z, state, flag);
+        HeightmapCache.invalidate(scan.world, x, z);
+        changed++;
+    }
+
+    @Override
+    public long work(long budget, long deadline) {
+        long done = 0;
+        while (!isDone() && done < budget && System.nanoTime() < deadline) {
+            long sliceEnd = Math.min(budget, done + BlockTaskScheduler.SLICE);
+            while (!scan.isDone() && done < sliceEnd) {
+                long start = scan.getChecked();
+                boolean found = scan.next(sliceEnd - done);
+                done += scan.getChecked() - start;
+                if (found) {
+                    place(scan.getX(), scan.getY(), scan.getZ());
+                    done++;
+                }
+            }
+            while (scan.isDone() && deferredNext < deferredCount && done < sliceEnd) {
+                set(deferred[deferredNext], deferred[deferredNext + 1], deferred[deferredNext + 2], BlockChangeFlags.ALL);
+                deferredNext += 3;
+                done++;
+            }
+        }
+        return done;
+    }
+
+    @Override
+    public boolean isDone() {
+        return scan.isDone() && deferredNext >= deferredCount;
+    }
+
+    @Override
+    public double getProgress() {
+        long volume = scan.getVolume();
+        return isDone() || volume == 0 ? 1.0 : (double) scan.getChecked() / volume;
+    }
+
+    @Override
+    public AbstractTagObject getResult() {
+        return new IntegerTag(changed);
+    }
+}
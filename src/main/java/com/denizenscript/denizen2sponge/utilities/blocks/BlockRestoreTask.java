@@ -0,0 +1,91 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import org.spongepowered.api.block.BlockSnapshot;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.BlockChangeFlag;
+import org.spongepowered.api.world.World;
+
+public class BlockRestoreTask implements BlockTask {
+
+    // Puts back the blocks recorded in an undo buffer, newest first, so blocks changed by
+    // several edits end up as they were before the first one. Only the runs recorded before
+    // the task started are restored.
+
+    public BlockUndoBuffer buffer;
+
+    public BlockChangeFlag flag;
+
+    // Whether to close the buffer once it has been restored.
+    public boolean discard;
+
+    private int run;
+
+    private int offset = 0;
+
+    private long total;
+
+    private long restored = 0;
+
+    public BlockRestoreTask(BlockUndoBuffer buffer, BlockChangeFlag flag, boolean discard) {
+        this.buffer = buffer;
+        this.flag = flag;
+        this.discard = discard;
+        this.run = buffer.getRuns() - 1;
+        this.total = buffer.getBlocks();
+    }
+
+    @Override
+    public long work(long budget, long deadline) {
+        long done = 0;
+        while (!isDone() && done < budget && System.nanoTime() < deadline) {
+            long sliceEnd = Math.min(budget, done + BlockTaskScheduler.SLICE);
+            while (run >= 0 && done < sliceEnd) {
+                World world = buffer.getWorld(run);
+                BlockState state = buffer.getState(run);
+                BlockSnapshot snapshot = buffer.getSnapshot(run);
+                int x = buffer.getX(run);
+                int y = buffer.getY(run);
+                int z = buffer.getZ(run);
+                int length = buffer.getLength(run);
+                while (offset < length && done < sliceEnd) {
+                    if (snapshot != null) {
+                        // Also puts back the contents of chests, signs and other tile entities.
+                        snapshot.restore(true, flag);
+                    }
+                    else {
+                        world.setBlock(x, y, z + offset, state, flag);
+                    }
+                    HeightmapCache.invalidate(world, x, z + offset);
+                    offset++;
+                    restored++;
+                    done++;
+                }
+                if (offset >= length) {
+                    run--;
+                    offset = 0;
+                }
+            }
+        }
+        if (run < 0 && discard && !buffer.isClosed()) {
+            buffer.close();
+        }
+        return done;
+    }
+
+    @Override
+    public boolean isDone() {
+        return run < 0;
+    }
+
+    @Override
+    public double getProgress() {
+        return isDone() || total == 0 ? 1.0 : (double) restored / total;
+    }
+
+    @Override
+    public AbstractTagObject getResult() {
+        return new IntegerTag(restored);
+    }
+}
@@ -0,0 +1,146 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
+
+import java.util.Set;
+
+public class BlockScan {
+
+    // Incrementally searches a region for blocks of the given types (or any type, if null),
+    // copying one chunk column of the region at a time, so a search that stops early
+    // never reads the rest of the region. Matches are found chunk column by chunk column.
+
+    public final World world;
+
+    public final Set<BlockType> types;
+
+    private Vector3i min;
+
+    private Vector3i max;
+
+    private int chunkX, chunkZ;
+
+    private ImmutableBlockVolume column;
+
+    private Vector3i columnMin, columnMax;
+
+    private int x, y, z;
+
+    private boolean done = false;
+
+    private long checked = 0;
+
+    private int foundX, foundY, foundZ;
+
+    public BlockScan(World world, Vector3i min, Vector3i max, Set<BlockType> types) {
+        this.world = world;
+        this.types = types;
+        Vector3i[] bounds = BlockVolumes.clamp(world, min, max);
+        if (bounds == null) {
+            done = true;
+            return;
+        }
+        this.min = bounds[0];
+        this.max = bounds[1];
+        chunkX = this.min.getX() >> 4;
+        chunkZ = this.min.getZ() >> 4;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public long getChecked() {
+        return checked;
+    }
+
+    // The region being scanned, clamped to the world, or null if nothing of it is in the world.
+    public Vector3i getMin() {
+        return min;
+    }
+
+    public Vector3i getMax() {
+        return max;
+    }
+
+    public long getVolume() {
+        if (min == null) {
+            return 0;
+        }
+        Vector3i size = max.sub(min).add(1, 1, 1);
+        return (long) size.getX() * size.getY() * size.getZ();
+    }
+
+    public int getX() {
+        return foundX;
+    }
+
+    public int getY() {
+        return foundY;
+    }
+
+    public int getZ() {
+        return foundZ;
+    }
+
+    private boolean nextColumn() {
+        if (chunkX > (max.getX() >> 4)) {
+            return false;
+        }
+        columnMin = new Vector3i(Math.max(min.getX(), chunkX << 4), min.getY(), Math.max(min.getZ(), chunkZ << 4));
+        columnMax = new Vector3i(Math.min(max.getX(), (chunkX << 4) + 15), max.getY(), Math.min(max.getZ(), (chunkZ << 4) + 15));
+        column = world.getBlockView(columnMin, columnMax).getImmutableBlockCopy();
+        x = columnMin.getX();
+        y = columnMin.getY();
+        z = columnMin.getZ();
+        chunkZ++;
+        if (chunkZ > (max.getZ() >> 4)) {
+            chunkZ = min.getZ() >> 4;
+            chunkX++;
+        }
+        return true;
+    }
+
+    // Checks blocks until the next match, returning false if there was none within the
+    // given number of checked blocks (or at all, in which case the scan is done).
+    public boolean next(long maxChecks) {
+        while (!done && maxChecks > 0) {
+            if (column == null && !nextColumn()) {
+                done = true;
+                return false;
+            }
+            int cx = x;
+            int cy = y;
+            int cz = z;
+            BlockType type = column.getBlockType(cx, cy, cz);
+            checked++;
+            maxChecks--;
+            z++;
+            if (z > columnMax.getZ()) {
+                z = columnMin.getZ();
+                y++;
+                if (y > columnMax.getY()) {
+                    y = columnMin.getY();
+                    x++;
+                    if (x > columnMax.getX()) {
+                        column = null;
+                    }
+                }
+            }
+            if (types == null || types.contains(type)) {
+                foundX = cx;
+                foundY = cy;
+                foundZ = cz;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean next() {
+        return next(Long.MAX_VALUE);
+    }
+}
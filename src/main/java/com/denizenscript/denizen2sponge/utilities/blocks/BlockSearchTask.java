@@ -0,0 +1,50 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2sponge.tags.objects.LocationListTag;
+
+public class BlockSearchTask implements BlockTask {
+
+    public BlockScan scan;
+
+    public LocationListTag result;
+
+    // 0 for no limit.
+    public int limit;
+
+    public BlockSearchTask(BlockScan scan, int limit) {
+        this.scan = scan;
+        this.limit = limit;
+        this.result = new LocationListTag(scan.world);
+    }
+
+    @Override
+    public long work(long budget, long deadline) {
+        long start = scan.getChecked();
+        while (!isDone() && scan.getChecked() - start < budget && System.nanoTime() < deadline) {
+            long sliceEnd = Math.min(budget, scan.getChecked() - start + BlockTaskScheduler.SLICE);
+            while (!isDone() && scan.getChecked() - start < sliceEnd) {
+                if (scan.next(sliceEnd - (scan.getChecked() - start))) {
+                    result.add(scan.getX(), scan.getY(), scan.getZ());
+                }
+            }
+        }
+        return scan.getChecked() - start;
+    }
+
+    @Override
+    public boolean isDone() {
+        return scan.isDone() || (limit > 0 && result.size() >= limit);
+    }
+
+    @Override
+    public double getProgress() {
+        long volume = scan.getVolume();
+        return isDone() || volume == 0 ? 1.0 : (double) scan.getChecked() / volume;
+    }
+
+    @Override
+    public AbstractTagObject getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.utilities.Action;
+import com.denizenscript.denizen2sponge.utilities.DataKeys;
+import com.denizenscript.denizen2sponge.utilities.flags.FlagMap;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.data.key.Key;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class BlockStateTransformer {
+
+    // Applies a set of properties to block states. Keys are resolved once up front, and the
+    // result for each distinct input state is remembered, since bulk edits tend to see the
+    // same few states over and over. Edits to lists of mixed blocks skip the properties a block
+    // does not have, rather than erroring for every kind of block, and only report a property
+    // that none of the blocks had.
+
+    private final ArrayList<Key> keys = new ArrayList<>();
+
+    private final ArrayList<AbstractTagObject> values = new ArrayList<>();
+
+    private final HashMap<BlockState, BlockState> results = new HashMap<>();
+
+    private final HashSet<Key> applied = new HashSet<>();
+
+    private final HashSet<Key> unsupported = new HashSet<>();
+
+    private final Action<String> error;
+
+    public BlockStateTransformer(Action<String> error) {
+        this.error = error;
+    }
+
+    public void add(Key key, AbstractTagObject value) {
+        keys.add(key);
+        values.add(value);
+        results.clear();
+    }
+
+    public BlockState apply(BlockState input) {
+        BlockState result = results.get(input);
+        if (result == null) {
+            result = transform(input);
+            results.put(input, result);
+        }
+        return result;
+    }
+
+    // Reports, once each, the properties that none of the blocks seen so far had.
+    public void reportUnsupported() {
+        for (Key key : unsupported) {
+            if (!applied.contains(key)) {
+                error.run("None of the blocks support the key '" + key.getId() + "'!");
+            }
+        }
+        unsupported.clear();
+    }
+
+    private BlockState transform(BlockState state) {
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            if (!state.supports(key) && !FlagMap.class.isAssignableFrom(key.getElementToken().getRawType())) {
+                unsupported.add(key);
+                continue;
+            }
+            BlockState changed = (BlockState) DataKeys.with(state, key, values.get(i), error);
+            if (changed == null) {
+                return state;
+            }
+            applied.add(key);
+            state = changed;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,17 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+
+public interface BlockTask {
+
+    // Does up to the given amount of work (roughly one unit per block), stopping early once
+    // System.nanoTime() passes the deadline, and returns how much was done.
+    long work(long budget, long deadline);
+
+    boolean isDone();
+
+    // From 0 to 1.
+    double getProgress();
+
+    AbstractTagObject getResult();
+}
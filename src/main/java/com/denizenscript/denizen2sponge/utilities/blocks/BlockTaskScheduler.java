@@ -0,0 +1,159 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import com.denizenscript.denizen2sponge.Settings;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.scheduler.SpongeExecutorService;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BlockTaskScheduler {
+
+    // Runs large block operations a slice at a time, sharing a fixed amount of block work
+    // and time per tick between all running tasks. Tasks started by commands draw their first
+    // slice from the same budget as the tasks continued each tick. Finished tasks are kept
+    // around for a while so scripts can read their results by ID.
+
+    public static final int MAX_FINISHED = 1024;
+
+    // How many blocks tasks should handle between checks of their deadline.
+    public static final int SLICE = 1024;
+
+    private static long nextId = 1;
+
+    private static final LinkedHashMap<Long, BlockTask> active = new LinkedHashMap<>();
+
+    private static final LinkedHashMap<Long, BlockTask> finished = new LinkedHashMap<Long, BlockTask>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BlockTask> eldest) {
+            return size() > MAX_FINISHED;
+        }
+    };
+
+    // The tick the budgets below are for, and what is left of them.
+    private static int budgetTick = -1;
+
+    private static long budgetLeft;
+
+    private static long budgetDeadline;
+
+    private static SpongeExecutorService asyncExecutor;
+
+    // Runs work that doesn't touch the world, such as file access or analysing block copies, off the main thread.
+    public static SpongeExecutorService getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = Sponge.getScheduler().createAsyncExecutor(Denizen2Sponge.instance);
+        }
+        return asyncExecutor;
+    }
+
+    public static void register() {
+        Sponge.getScheduler().createTaskBuilder().intervalTicks(1).execute(BlockTaskScheduler::tick).submit(Denizen2Sponge.instance);
+    }
+
+    public static long schedule(BlockTask task) {
+        long id = nextId++;
+        active.put(id, task);
+        return id;
+    }
+
+    // Starts the budgets over on the first block work of each tick.
+    private static void updateBudget() {
+        int now = Sponge.getServer().getRunningTimeTicks();
+        if (now != budgetTick) {
+            budgetTick = now;
+            budgetLeft = Settings.blockBudget();
+            budgetDeadline = System.nanoTime() + Settings.blockTimeBudget() * 1000000L;
+        }
+    }
+
+    private static boolean hasBudget() {
+        updateBudget();
+        return budgetLeft > 0 && System.nanoTime() < budgetDeadline;
+    }
+
+    // Runs as much of the task as is left of this tick's budgets right away, and schedules the rest for later ticks.
+    public static long run(BlockTask task) {
+        if (!hasBudget()) {
+            return schedule(task);
+        }
+        long id = nextId++;
+        try {
+            budgetLeft -= task.work(budgetLeft, budgetDeadline);
+        }
+        catch (Exception ex) {
+            Debug.exception(ex);
+            finished.put(id, task);
+            return id;
+        }
+        if (task.isDone()) {
+            finished.put(id, task);
+        }
+        else {
+            active.put(id, task);
+        }
+        return id;
+    }
+
+    // Runs the whole task right away, ignoring the budgets, though its work still counts against them for this tick.
+    // Tasks that are waiting on something else, and so can't make progress, are scheduled for later ticks instead.
+    public static long runNow(BlockTask task) {
+        updateBudget();
+        long id = nextId++;
+        try {
+            while (!task.isDone()) {
+                long done = task.work(Long.MAX_VALUE, Long.MAX_VALUE);
+                budgetLeft -= done;
+                if (done == 0 && !task.isDone()) {
+                    active.put(id, task);
+                    return id;
+                }
+            }
+        }
+        catch (Exception ex) {
+            Debug.exception(ex);
+        }
+        finished.put(id, task);
+        return id;
+    }
+
+    public static BlockTask getTask(long id) {
+        BlockTask task = active.get(id);
+        return task != null ? task : finished.get(id);
+    }
+
+    public static boolean isFinished(long id) {
+        return finished.containsKey(id);
+    }
+
+    public static void tick() {
+        if (active.isEmpty() || !hasBudget()) {
+            return;
+        }
+        int remaining = active.size();
+        Iterator<Map.Entry<Long, BlockTask>> it = active.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, BlockTask> entry = it.next();
+            BlockTask task = entry.getValue();
+            // Budget a task doesn't use is passed on to the tasks after it.
+            long share = Math.max(budgetLeft / remaining, 1);
+            remaining--;
+            try {
+                budgetLeft -= task.work(share, budgetDeadline);
+            }
+            catch (Exception ex) {
+                Debug.exception(ex);
+                it.remove();
+                finished.put(entry.getKey(), task);
+                continue;
+            }
+            if (task.isDone()) {
+                it.remove();
+                finished.put(entry.getKey(), task);
+            }
+        }
+    }
+}
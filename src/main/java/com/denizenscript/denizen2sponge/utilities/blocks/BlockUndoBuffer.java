@@ -0,0 +1,270 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.utilities.CoreUtilities;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import com.denizenscript.denizen2sponge.Settings;
+import org.spongepowered.api.block.BlockSnapshot;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+public class BlockUndoBuffer {
+
+    // Records the blocks a bulk edit is about to overwrite, so the edit can be undone later.
+    // Block states are stored as indices into a palette, and consecutive blocks along the
+    // z axis with the same state are stored as a single run. Buffers that grow past the
+    // configured memory limit are moved into a memory-mapped file. Blocks with tile entities,
+    // such as chests and signs, are kept in memory as full block snapshots so their contents come back too.
+
+    private static final HashMap<String, BlockUndoBuffer> named = new HashMap<>();
+
+    public static BlockUndoBuffer getOrCreate(String name) {
+        return named.computeIfAbsent(CoreUtilities.toLowerCase(name), (k) -> new BlockUndoBuffer());
+    }
+
+    public static BlockUndoBuffer get(String name) {
+        return named.get(CoreUtilities.toLowerCase(name));
+    }
+
+    public static BlockUndoBuffer remove(String name) {
+        return named.remove(CoreUtilities.toLowerCase(name));
+    }
+
+    // Each run is stored as: world index, x, y, z, length, palette index.
+    // A negative palette index instead refers to a single block in the tile entity snapshot list.
+    private static final int FIELDS = 6;
+
+    // Runs are found by int index, so a buffer holds at most this many.
+    private static final int MAX_RUNS = Integer.MAX_VALUE / FIELDS;
+
+    // Files are mapped in segments of this many ints, as a single mapping can't be larger than 2GB.
+    private static final int SEGMENT_SHIFT = 24;
+
+    private static final int SEGMENT_INTS = 1 << SEGMENT_SHIFT;
+
+    private final ArrayList<World> worlds = new ArrayList<>();
+
+    private final IdentityHashMap<World, Integer> worldIds = new IdentityHashMap<>();
+
+    private final ArrayList<BlockState> palette = new ArrayList<>();
+
+    private final HashMap<BlockState, Integer> paletteIds = new HashMap<>();
+
+    private final ArrayList<BlockSnapshot> tileSnapshots = new ArrayList<>();
+
+    // The runs while they are kept in memory.
+    private IntBuffer data = IntBuffer.allocate(FIELDS * 64);
+
+    // The mapped segments of the file, once the runs were moved into one.
+    private final ArrayList<IntBuffer> segments = new ArrayList<>();
+
+    private int runs = 0;
+
+    private long blocks = 0;
+
+    private File file;
+
+    private RandomAccessFile mapped;
+
+    private boolean closed = false;
+
+    private boolean full = false;
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public long getBlocks() {
+        return blocks;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void record(World world, int x, int y, int z, BlockState state) {
+        if (closed || full) {
+            return;
+        }
+        Integer worldId = worldIds.get(world);
+        if (worldId == null) {
+            worldId = worlds.size();
+            worlds.add(world);
+            worldIds.put(world, worldId);
+        }
+        Integer stateId;
+        if (world.getTileEntity(x, y, z).isPresent()) {
+            // Never part of a longer run, as no other block shares the index.
+            stateId = -1 - tileSnapshots.size();
+            tileSnapshots.add(world.createSnapshot(x, y, z));
+        }
+        else {
+            stateId = paletteIds.get(state);
+        }
+        if (stateId == null) {
+            stateId = palette.size();
+            palette.add(state);
+            paletteIds.put(state, stateId);
+        }
+        blocks++;
+        if (runs > 0) {
+            int last = (runs - 1) * FIELDS;
+            int length = get(last + 4);
+            if (get(last) == worldId && get(last + 1) == x && get(last + 2) == y
+                    && get(last + 3) + length == z && get(last + 5) == stateId) {
+                put(last + 4, length + 1);
+                return;
+            }
+        }
+        if (runs == MAX_RUNS) {
+            full = true;
+            blocks--;
+            if (stateId < 0) {
+                tileSnapshots.remove(tileSnapshots.size() - 1);
+            }
+            Debug.error("A block snapshot is full, further changes will not be recorded into it!");
+            return;
+        }
+        ensureCapacity((runs + 1) * FIELDS);
+        int i = runs * FIELDS;
+        put(i, worldId);
+        put(i + 1, x);
+        put(i + 2, y);
+        put(i + 3, z);
+        put(i + 4, 1);
+        put(i + 5, stateId);
+        runs++;
+    }
+
+    private int get(int i) {
+        return mapped == null ? data.get(i) : segments.get(i >>> SEGMENT_SHIFT).get(i & (SEGMENT_INTS - 1));
+    }
+
+    private void put(int i, int value) {
+        if (mapped == null) {
+            data.put(i, value);
+        }
+        else {
+            segments.get(i >>> SEGMENT_SHIFT).put(i & (SEGMENT_INTS - 1), value);
+        }
+    }
+
+    private void ensureCapacity(int ints) {
+        if (mapped != null) {
+            try {
+                mapSegments(ints);
+            }
+            catch (IOException ex) {
+                throw new RuntimeException("Failed to grow a block snapshot file!", ex);
+            }
+            return;
+        }
+        if (ints <= data.capacity()) {
+            return;
+        }
+        int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(ints, data.capacity() * 2L));
+        if ((long) capacity * 4 > Settings.blockSnapshotMemoryLimit() * 1024L * 1024L) {
+            try {
+                openFile();
+                mapSegments(ints);
+                // Moving into a file, so the heap buffer's contents need copying over.
+                for (int i = 0; i < runs * FIELDS; i++) {
+                    put(i, data.get(i));
+                }
+                data = IntBuffer.allocate(0);
+                return;
+            }
+            catch (IOException ex) {
+                Debug.error("Failed to move a block snapshot into a file, keeping it in memory instead.");
+                Debug.exception(ex);
+                closeFile();
+            }
+        }
+        IntBuffer grown = IntBuffer.allocate(capacity);
+        for (int i = 0; i < runs * FIELDS; i++) {
+            grown.put(i, data.get(i));
+        }
+        data = grown;
+    }
+
+    private void openFile() throws IOException {
+        File folder = Denizen2Sponge.instance.getBlockSnapshotsFolder();
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Cannot create folder " + folder);
+        }
+        file = File.createTempFile("snapshot_", ".dat", folder);
+        mapped = new RandomAccessFile(file, "rw");
+    }
+
+    // Maps further segments of the file until it holds at least the given number of ints.
+    private void mapSegments(int ints) throws IOException {
+        while ((long) segments.size() * SEGMENT_INTS < ints) {
+            long offset = (long) segments.size() * SEGMENT_INTS * 4;
+            segments.add(mapped.getChannel().map(FileChannel.MapMode.READ_WRITE, offset, SEGMENT_INTS * 4L).asIntBuffer());
+        }
+    }
+
+    public World getWorld(int run) {
+        return worlds.get(get(run * FIELDS));
+    }
+
+    public int getX(int run) {
+        return get(run * FIELDS + 1);
+    }
+
+    public int getY(int run) {
+        return get(run * FIELDS + 2);
+    }
+
+    public int getZ(int run) {
+        return get(run * FIELDS + 3);
+    }
+
+    public int getLength(int run) {
+        return get(run * FIELDS + 4);
+    }
+
+    public BlockState getState(int run) {
+        int stateId = get(run * FIELDS + 5);
+        return stateId < 0 ? tileSnapshots.get(-1 - stateId).getState() : palette.get(stateId);
+    }
+
+    // The full snapshot of a block that had a tile entity, or null if the run only needs its state.
+    public BlockSnapshot getSnapshot(int run) {
+        int stateId = get(run * FIELDS + 5);
+        return stateId < 0 ? tileSnapshots.get(-1 - stateId) : null;
+    }
+
+    private void closeFile() {
+        if (mapped == null) {
+            return;
+        }
+        try {
+            mapped.close();
+        }
+        catch (IOException ex) {
+            Debug.exception(ex);
+        }
+        mapped = null;
+        segments.clear();
+        // The file stays mapped until the buffer is garbage collected, which stops some systems from deleting it.
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    public void close() {
+        closed = true;
+        data = IntBuffer.allocate(0);
+        runs = 0;
+        tileSnapshots.clear();
+        closeFile();
+    }
+}
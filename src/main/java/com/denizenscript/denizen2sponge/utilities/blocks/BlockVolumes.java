@@ -0,0 +1,67 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.ListTag;
+import com.denizenscript.denizen2core.utilities.Action;
+import com.denizenscript.denizen2sponge.tags.objects.BlockTypeTag;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+public class BlockVolumes {
+
+    public interface BlockVisitor {
+        void visit(int x, int y, int z, BlockType type);
+    }
+
+    // Block types are singletons, so they can be compared by identity.
+    public static Set<BlockType> typeSet(Collection<BlockType> types) {
+        Set<BlockType> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(types);
+        return set;
+    }
+
+    public static Set<BlockType> parseTypes(Action<String> error, AbstractTagObject list) {
+        Set<BlockType> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (AbstractTagObject ato : ListTag.getFor(error, list).getInternal()) {
+            set.add(BlockTypeTag.getFor(error, ato).getInternal());
+        }
+        return set;
+    }
+
+    // Clamps the region to the world's block bounds, or returns null if nothing is left of it.
+    public static Vector3i[] clamp(World world, Vector3i min, Vector3i max) {
+        Vector3i low = min.max(world.getBlockMin());
+        Vector3i high = max.min(world.getBlockMax());
+        if (low.getX() > high.getX() || low.getY() > high.getY() || low.getZ() > high.getZ()) {
+            return null;
+        }
+        return new Vector3i[] { low, high };
+    }
+
+    // Copies the region into an immutable volume in one bulk read, then visits every block
+    // of it matching the given types (or all of them, if null), ordered by x then y then z.
+    public static void forEachBlock(World world, Vector3i min, Vector3i max, Set<BlockType> types, BlockVisitor visitor) {
+        Vector3i[] bounds = clamp(world, min, max);
+        if (bounds == null) {
+            return;
+        }
+        ImmutableBlockVolume snapshot = world.getBlockView(bounds[0], bounds[1]).getImmutableBlockCopy();
+        for (int x = bounds[0].getX(); x <= bounds[1].getX(); x++) {
+            for (int y = bounds[0].getY(); y <= bounds[1].getY(); y++) {
+                for (int z = bounds[0].getZ(); z <= bounds[1].getZ(); z++) {
+                    BlockType type = snapshot.getBlockType(x, y, z);
+                    if (types == null || types.contains(type)) {
+                        visitor.visit(x, y, z, type);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.block.BlockSnapshot;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.block.BlockTypes;
+import org.spongepowered.api.data.Transaction;
+import org.spongepowered.api.data.property.block.PassableProperty;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.block.ChangeBlockEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.*;
+
+public class HeightmapCache {
+
+    // Caches the surface height of each column of loaded chunks, and whether the surface
+    // is safe to stand on. Columns are forgotten when blocks in them change, and chunks
+    // when they unload. Block tasks report their own changes, as API block changes
+    // don't always fire events.
+
+    private static class ChunkHeights {
+
+        // The Y of the location on top of each column's highest block, or -1 if unknown.
+        public final int[] heights = new int[256];
+
+        // 0 if unknown, 1 if safe, 2 if not.
+        public final byte[] safety = new byte[256];
+
+        public ChunkHeights() {
+            Arrays.fill(heights, -1);
+        }
+    }
+
+    private static final Set<BlockType> DANGEROUS = BlockVolumes.typeSet(Arrays.asList(
+            BlockTypes.LAVA, BlockTypes.FLOWING_LAVA, BlockTypes.WATER, BlockTypes.FLOWING_WATER,
+            BlockTypes.FIRE, BlockTypes.CACTUS, BlockTypes.MAGMA, BlockTypes.WEB));
+
+    private static final IdentityHashMap<World, HashMap<Long, ChunkHeights>> worlds = new IdentityHashMap<>();
+
+    // The furthest a safe surface search may reach, as every column checked is a chunk lookup.
+    public static final int MAX_SEARCH_RADIUS = 128;
+
+    public static void register() {
+        Sponge.getEventManager().registerListeners(Denizen2Sponge.instance, new HeightmapCache());
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int columnIndex(int x, int z) {
+        return ((x & 15) << 4) | (z & 15);
+    }
+
+    private static ChunkHeights getChunk(World world, int x, int z) {
+        return worlds.computeIfAbsent(world, (k) -> new HashMap<>())
+                .computeIfAbsent(chunkKey(x >> 4, z >> 4), (k) -> new ChunkHeights());
+    }
+
+    public static int getHighestY(World world, int x, int z) {
+        ChunkHeights chunk = getChunk(world, x, z);
+        int i = columnIndex(x, z);
+        if (chunk.heights[i] < 0) {
+            chunk.heights[i] = world.getHighestYAt(x, z);
+        }
+        return chunk.heights[i];
+    }
+
+    // Whether the top of the column has solid, harmless ground with room for an entity two blocks tall above it.
+    public static boolean isSafe(World world, int x, int z) {
+        ChunkHeights chunk = getChunk(world, x, z);
+        int i = columnIndex(x, z);
+        if (chunk.safety[i] == 0) {
+            chunk.safety[i] = checkSafe(world, x, getHighestY(world, x, z), z) ? (byte) 1 : (byte) 2;
+        }
+        return chunk.safety[i] == 1;
+    }
+
+    private static boolean checkSafe(World world, int x, int y, int z) {
+        if (y <= world.getBlockMin().getY() || y + 1 > world.getBlockMax().getY()) {
+            return false;
+        }
+        BlockState ground = world.getBlock(x, y - 1, z);
+        if (DANGEROUS.contains(ground.getType()) || isPassable(ground)) {
+            return false;
+        }
+        BlockState feet = world.getBlock(x, y, z);
+        BlockState head = world.getBlock(x, y + 1, z);
+        return isPassable(feet) && isPassable(head) && !DANGEROUS.contains(feet.getType()) && !DANGEROUS.contains(head.getType());
+    }
+
+    private static boolean isPassable(BlockState state) {
+        Optional<PassableProperty> passable = state.getProperty(PassableProperty.class);
+        return passable.isPresent() && Boolean.TRUE.equals(passable.get().getValue());
+    }
+
+    public static void invalidate(World world, int x, int z) {
+        HashMap<Long, ChunkHeights> chunks = worlds.get(world);
+        if (chunks == null) {
+            return;
+        }
+        ChunkHeights chunk = chunks.get(chunkKey(x >> 4, z >> 4));
+        if (chunk != null) {
+            int i = columnIndex(x, z);
+            chunk.heights[i] = -1;
+            chunk.safety[i] = 0;
+        }
+    }
+
+    // Searches the columns around a location in growing squares, returning the top of the nearest safe one
+    // within the radius. Columns in chunks that aren't loaded are skipped rather than loaded.
+    public static Vector3i findSafeSurface(World world, int x, int z, int radius) {
+        HashMap<Long, Boolean> loaded = new HashMap<>();
+        Vector3i best = null;
+        long bestDistance = Long.MAX_VALUE;
+        long maxDistance = (long) radius * radius;
+        // A column in square r is at least r blocks away, so once r reaches the best distance nothing closer is left.
+        for (int r = 0; r <= radius && (long) r * r < bestDistance; r++) {
+            for (int dx = -r; dx <= r; dx++) {
+                for (int dz = -r; dz <= r; dz++) {
+                    // Only the edge of the square is new at each step.
+                    if (Math.abs(dx) != r && Math.abs(dz) != r) {
+                        continue;
+                    }
+                    long distance = (long) dx * dx + (long) dz * dz;
+                    if (distance >= bestDistance || distance > maxDistance) {
+                        continue;
+                    }
+                    int cx = (x + dx) >> 4;
+                    int cz = (z + dz) >> 4;
+                    boolean isLoaded = loaded.computeIfAbsent(chunkKey(cx, cz), (k) -> world.getChunk(cx, 0, cz).isPresent());
+                    if (isLoaded && isSafe(world, x + dx, z + dz)) {
+                        best = new Vector3i(x + dx, getHighestY(world, x + dx, z + dz), z + dz);
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    @Listener(order = Order.POST)
+    public void onBlocksChange(ChangeBlockEvent.Post evt) {
+        for (Transaction<BlockSnapshot> transaction : evt.getTransactions()) {
+            Optional<Location<World>> loc = transaction.getOriginal().getLocation();
+            if (loc.isPresent()) {
+                invalidate(loc.get().getExtent(), loc.get().getBlockX(), loc.get().getBlockZ());
+            }
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onChunkUnloads(UnloadChunkEvent evt) {
+        HashMap<Long, ChunkHeights> chunks = worlds.get(evt.getTargetChunk().getWorld());
+        if (chunks != null) {
+            Vector3i pos = evt.getTargetChunk().getPosition();
+            chunks.remove(chunkKey(pos.getX(), pos.getZ()));
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onWorldUnloads(UnloadWorldEvent evt) {
+        worlds.remove(evt.getTargetWorld());
+    }
+}
@@ -0,0 +1,118 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.BooleanTag;
+import com.denizenscript.denizen2core.tags.objects.ListTag;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.utilities.Action;
+import com.denizenscript.denizen2sponge.tags.objects.LocationTag;
+import com.denizenscript.denizen2sponge.utilities.UtilLocation;
+import com.flowpowered.math.vector.Vector3d;
+import org.spongepowered.api.block.BlockTypes;
+import org.spongepowered.api.world.Chunk;
+import org.spongepowered.api.world.World;
+
+import java.util.HashMap;
+import java.util.Optional;
+
+public class RayCaster {
+
+    // Checks lines of sight by walking the blocks between two points (a 3D DDA), for many
+    // rays in a row. Chunks are looked up once per caster and reused across rays.
+    // Blocks in unloaded chunks count as blocking, so rays never load chunks.
+
+    public final World world;
+
+    private final HashMap<Long, Optional<Chunk>> chunks = new HashMap<>();
+
+    private long lastKey;
+
+    private Chunk lastChunk;
+
+    private final int minY, maxY;
+
+    public RayCaster(World world) {
+        this.world = world;
+        this.minY = world.getBlockMin().getY();
+        this.maxY = world.getBlockMax().getY();
+    }
+
+    private boolean isAir(int x, int y, int z) {
+        if (y < minY || y > maxY) {
+            return true;
+        }
+        long key = ((long) (x >> 4) << 32) | ((z >> 4) & 0xFFFFFFFFL);
+        if (lastChunk == null || key != lastKey) {
+            Optional<Chunk> chunk = chunks.computeIfAbsent(key, (k) -> world.getChunk(x >> 4, 0, z >> 4));
+            if (!chunk.isPresent()) {
+                return false;
+            }
+            lastKey = key;
+            lastChunk = chunk.get();
+        }
+        return lastChunk.getBlockType(x, y, z) == BlockTypes.AIR;
+    }
+
+    // Whether every block strictly between the blocks of the two points is air.
+    public boolean canSee(Vector3d from, Vector3d to) {
+        int x = (int) Math.floor(from.getX());
+        int y = (int) Math.floor(from.getY());
+        int z = (int) Math.floor(from.getZ());
+        int remainingX = Math.abs((int) Math.floor(to.getX()) - x);
+        int remainingY = Math.abs((int) Math.floor(to.getY()) - y);
+        int remainingZ = Math.abs((int) Math.floor(to.getZ()) - z);
+        double dx = to.getX() - from.getX();
+        double dy = to.getY() - from.getY();
+        double dz = to.getZ() - from.getZ();
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        int stepZ = dz > 0 ? 1 : -1;
+        // Distances along the ray (from 0 to 1) to cross one block on each axis, and to the next block boundary.
+        double deltaX = dx == 0 ? Double.MAX_VALUE : Math.abs(1.0 / dx);
+        double deltaY = dy == 0 ? Double.MAX_VALUE : Math.abs(1.0 / dy);
+        double deltaZ = dz == 0 ? Double.MAX_VALUE : Math.abs(1.0 / dz);
+        double nextX = dx == 0 ? Double.MAX_VALUE : (dx > 0 ? x + 1 - from.getX() : from.getX() - x) * deltaX;
+        double nextY = dy == 0 ? Double.MAX_VALUE : (dy > 0 ? y + 1 - from.getY() : from.getY() - y) * deltaY;
+        double nextZ = dz == 0 ? Double.MAX_VALUE : (dz > 0 ? z + 1 - from.getZ() : from.getZ() - z) * deltaZ;
+        while (remainingX + remainingY + remainingZ > 0) {
+            // Rounding can make an axis look closer than it is, so never step past the target on any axis.
+            boolean canX = remainingX > 0;
+            boolean canY = remainingY > 0;
+            boolean canZ = remainingZ > 0;
+            if (canX && (!canY || nextX <= nextY) && (!canZ || nextX <= nextZ)) {
+                x += stepX;
+                nextX += deltaX;
+                remainingX--;
+            }
+            else if (canY && (!canZ || nextY <= nextZ)) {
+                y += stepY;
+                nextY += deltaY;
+                remainingY--;
+            }
+            else {
+                z += stepZ;
+                nextZ += deltaZ;
+                remainingZ--;
+            }
+            if (remainingX + remainingY + remainingZ == 0) {
+                return true;
+            }
+            if (!isAir(x, y, z)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Checks whether each target is in the line of sight of the origin, keyed by the targets as given.
+    public static MapTag checkAll(RayCaster caster, UtilLocation origin, ListTag targets, Action<String> error) {
+        MapTag result = new MapTag();
+        Vector3d from = origin.toVector3d();
+        for (AbstractTagObject ato : targets.getInternal()) {
+            UtilLocation target = LocationTag.getFor(error, ato).getInternal();
+            boolean visible = target.world == caster.world && caster.canSee(from, target.toVector3d());
+            result.getInternal().put(ato.toString(), new BooleanTag(visible));
+        }
+        return result;
+    }
+}
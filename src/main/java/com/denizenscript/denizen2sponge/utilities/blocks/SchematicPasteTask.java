@@ -0,0 +1,187 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.IntegerTag;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.tileentity.TileEntityArchetype;
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.persistence.DataTranslators;
+import org.spongepowered.api.world.BlockChangeFlag;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.schematic.Schematic;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class SchematicPasteTask implements BlockTask {
+
+    // Pastes a schematic chunk column by chunk column, then places its tile entities.
+    // The schematic file is read off the main thread, and the task waits for it before
+    // doing any work.
+
+    public CompletableFuture<DataView> loading;
+
+    public World world;
+
+    public Vector3i position;
+
+    public BlockChangeFlag flag;
+
+    // Records the blocks being replaced, if set.
+    public BlockUndoBuffer undo;
+
+    private Schematic schematic;
+
+    private boolean failed = false;
+
+    private Vector3i min, max;
+
+    private int chunkX, chunkZ;
+
+    private Vector3i columnMin, columnMax;
+
+    private int x, y, z;
+
+    private boolean inColumn = false;
+
+    private boolean blocksDone = false;
+
+    private Iterator<Map.Entry<Vector3i, TileEntityArchetype>> tileEntities;
+
+    private long volume = 0;
+
+    private long placed = 0;
+
+    public SchematicPasteTask(CompletableFuture<DataView> loading, World world, Vector3i position, BlockChangeFlag flag) {
+        this.loading = loading;
+        this.world = world;
+        this.position = position;
+        this.flag = flag;
+    }
+
+    private boolean prepare() {
+        if (schematic != null) {
+            return true;
+        }
+        if (failed || !loading.isDone()) {
+            return false;
+        }
+        try {
+            schematic = DataTranslators.SCHEMATIC.translate(loading.join());
+        }
+        catch (Exception ex) {
+            Debug.error("Failed to load a schematic to paste!");
+            Debug.exception(ex);
+            failed = true;
+            return false;
+        }
+        Vector3i[] bounds = BlockVolumes.clamp(world, position.add(schematic.getBlockMin()), position.add(schematic.getBlockMax()));
+        if (bounds == null) {
+            blocksDone = true;
+        }
+        else {
+            min = bounds[0];
+            max = bounds[1];
+            chunkX = min.getX() >> 4;
+            chunkZ = min.getZ() >> 4;
+            Vector3i size = max.sub(min).add(1, 1, 1);
+            volume = (long) size.getX() * size.getY() * size.getZ();
+        }
+        tileEntities = schematic.getTileEntityArchetypes().entrySet().iterator();
+        return true;
+    }
+
+    private boolean nextColumn() {
+        if (chunkX > (max.getX() >> 4)) {
+            return false;
+        }
+        columnMin = new Vector3i(Math.max(min.getX(), chunkX << 4), min.getY(), Math.max(min.getZ(), chunkZ << 4));
+        columnMax = new Vector3i(Math.min(max.getX(), (chunkX << 4) + 15), max.getY(), Math.min(max.getZ(), (chunkZ << 4) + 15));
+        x = columnMin.getX();
+        y = columnMin.getY();
+        z = columnMin.getZ();
+        inColumn = true;
+        chunkZ++;
+        if (chunkZ > (max.getZ() >> 4)) {
+            chunkZ = min.getZ() >> 4;
+            chunkX++;
+        }
+        return true;
+    }
+
+    private void placeNext() {
+        if (!inColumn && !nextColumn()) {
+            blocksDone = true;
+            return;
+        }
+        BlockState state = schematic.getBlock(x - position.getX(), y - position.getY(), z - position.getZ());
+        if (undo != null) {
+            undo.record(world, x, y, z, world.getBlock(x, y, z));
+        }
+        world.setBlock(x, y, z, state, flag);
+        HeightmapCache.invalidate(world, x, z);
+        placed++;
+        z++;
+        if (z > columnMax.getZ()) {
+            z = columnMin.getZ();
+            y++;
+            if (y > columnMax.getY()) {
+                y = columnMin.getY();
+                x++;
+                if (x > columnMax.getX()) {
+                    inColumn = false;
+                }
+            }
+        }
+    }
+
+    private void placeNextTileEntity() {
+        Map.Entry<Vector3i, TileEntityArchetype> entry = tileEntities.next();
+        Vector3i pos = position.add(entry.getKey());
+        if (world.containsBlock(pos)) {
+            entry.getValue().apply(new Location<>(world, pos));
+        }
+    }
+
+    @Override
+    public long work(long budget, long deadline) {
+        if (!prepare()) {
+            return 0;
+        }
+        long done = 0;
+        while (!isDone() && done < budget && System.nanoTime() < deadline) {
+            long sliceEnd = Math.min(budget, done + BlockTaskScheduler.SLICE);
+            while (!blocksDone && done < sliceEnd) {
+                placeNext();
+                done++;
+            }
+            while (blocksDone && tileEntities.hasNext() && done < sliceEnd) {
+                placeNextTileEntity();
+                done++;
+            }
+        }
+        return done;
+    }
+
+    @Override
+    public boolean isDone() {
+        return failed || (schematic != null && blocksDone && !tileEntities.hasNext());
+    }
+
+    @Override
+    public double getProgress() {
+        if (isDone()) {
+            return 1.0;
+        }
+        return volume == 0 ? 0.0 : (double) placed / volume;
+    }
+
+    @Override
+    public AbstractTagObject getResult() {
+        return new IntegerTag(placed);
+    }
+}
@@ -0,0 +1,80 @@
+package com.denizenscript.denizen2sponge.utilities.blocks;
+
+import com.denizenscript.denizen2core.utilities.CoreUtilities;
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.persistence.DataFormats;
+import org.spongepowered.api.data.persistence.DataTranslators;
+import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.extent.ArchetypeVolume;
+import org.spongepowered.api.world.schematic.BlockPaletteTypes;
+import org.spongepowered.api.world.schematic.Schematic;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class Schematics {
+
+    // Schematics are stored in the Sponge schematic format: gzipped NBT holding a block palette,
+    // packed palette indices and tile entity data. Files are read and written off the main thread,
+    // while capturing and translating schematics happens on it.
+
+    private static final Pattern VALID_NAME = Pattern.compile("[a-z0-9_\\-/]+");
+
+    // Returns null for names that aren't valid, or would point outside of the schematics folder.
+    public static File getFile(String name) {
+        name = CoreUtilities.toLowerCase(name);
+        if (!VALID_NAME.matcher(name).matches() || name.contains("..") || name.startsWith("/")) {
+            return null;
+        }
+        return new File(Denizen2Sponge.instance.getSchematicsFolder(), name + ".schem");
+    }
+
+    public static CompletableFuture<Void> save(World world, Vector3i min, Vector3i max, String name, File file) {
+        ArchetypeVolume volume = world.createArchetypeVolume(min, max, min);
+        Schematic schematic = Schematic.builder()
+                .volume(volume)
+                .paletteType(BlockPaletteTypes.LOCAL)
+                .metaValue(Schematic.METADATA_NAME, name)
+                .metaValue(Schematic.METADATA_DATE, System.currentTimeMillis())
+                .build();
+        DataContainer data = DataTranslators.SCHEMATIC.translate(schematic);
+        return CompletableFuture.runAsync(() -> {
+            try {
+                write(file.toPath(), data);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, BlockTaskScheduler.getAsyncExecutor());
+    }
+
+    private static void write(Path path, DataView data) throws IOException {
+        Files.createDirectories(path.getParent());
+        // Write to a temporary file first, so a failed save never leaves a broken schematic behind.
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            DataFormats.NBT.writeTo(out, data);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static CompletableFuture<DataView> load(File file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                return DataFormats.NBT.readFrom(in);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, BlockTaskScheduler.getAsyncExecutor());
+    }
+}
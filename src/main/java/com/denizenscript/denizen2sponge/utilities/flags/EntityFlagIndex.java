@@ -0,0 +1,169 @@
+package com.denizenscript.denizen2sponge.utilities.flags;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.tags.objects.TimeTag;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.entity.DestructEntityEvent;
+import org.spongepowered.api.event.entity.SpawnEntityEvent;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+public class EntityFlagIndex {
+
+    public static class IndexedFlag {
+
+        public String value;
+
+        public LocalDateTime expires;
+
+        public IndexedFlag(String value, LocalDateTime expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        public boolean isValid(LocalDateTime now) {
+            return expires == null || !expires.isBefore(now);
+        }
+    }
+
+    private static final HashMap<String, HashMap<UUID, IndexedFlag>> byFlag = new HashMap<>();
+
+    private static final HashMap<UUID, HashSet<String>> byEntity = new HashMap<>();
+
+    public static void register() {
+        Sponge.getEventManager().registerListeners(Denizen2Sponge.instance, new EntityFlagIndex());
+    }
+
+    public static void set(UUID id, String flag, MapTag entry) {
+        AbstractTagObject value = entry.getInternal().get("value");
+        AbstractTagObject duration = entry.getInternal().get("duration");
+        LocalDateTime expires = null;
+        if (duration != null) {
+            expires = TimeTag.getFor(Debug::error, duration).getInternal();
+        }
+        byFlag.computeIfAbsent(flag, (k) -> new HashMap<>())
+                .put(id, new IndexedFlag(value == null ? "" : value.toString(), expires));
+        byEntity.computeIfAbsent(id, (k) -> new HashSet<>()).add(flag);
+    }
+
+    public static void remove(UUID id, String flag) {
+        HashMap<UUID, IndexedFlag> ents = byFlag.get(flag);
+        if (ents != null) {
+            ents.remove(id);
+            if (ents.isEmpty()) {
+                byFlag.remove(flag);
+            }
+        }
+        HashSet<String> flags = byEntity.get(id);
+        if (flags != null) {
+            flags.remove(flag);
+            if (flags.isEmpty()) {
+                byEntity.remove(id);
+            }
+        }
+    }
+
+    public static void removeAll(UUID id) {
+        HashSet<String> flags = byEntity.remove(id);
+        if (flags == null) {
+            return;
+        }
+        for (String flag : flags) {
+            HashMap<UUID, IndexedFlag> ents = byFlag.get(flag);
+            if (ents != null) {
+                ents.remove(id);
+                if (ents.isEmpty()) {
+                    byFlag.remove(flag);
+                }
+            }
+        }
+    }
+
+    public static void index(Entity entity) {
+        UUID id = entity.getUniqueId();
+        removeAll(id);
+        Optional<FlagMap> fm = entity.get(FlagHelper.FLAGMAP);
+        if (!fm.isPresent()) {
+            return;
+        }
+        for (Map.Entry<String, AbstractTagObject> flag : fm.get().flags.getInternal().entrySet()) {
+            set(id, flag.getKey(), MapTag.getFor(Debug::error, flag.getValue()));
+        }
+    }
+
+    public static List<UUID> getFlagged(String flag) {
+        return getFlagged(flag, null);
+    }
+
+    public static List<UUID> getFlagged(String flag, String value) {
+        HashMap<UUID, IndexedFlag> ents = byFlag.get(flag);
+        if (ents == null) {
+            return Collections.emptyList();
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneId.of("UTC"));
+        List<UUID> result = new ArrayList<>();
+        for (Map.Entry<UUID, IndexedFlag> ent : ents.entrySet()) {
+            if (ent.getValue().isValid(now) && (value == null || ent.getValue().value.equals(value))) {
+                result.add(ent.getKey());
+            }
+        }
+        return result;
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntitiesSpawn(SpawnEntityEvent evt) {
+        if (evt.isCancelled()) {
+            return;
+        }
+        for (Entity entity : evt.getEntities()) {
+            index(entity);
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntityDestructed(DestructEntityEvent evt) {
+        // Players keep their data through death, they are handled by connection events instead.
+        if (!(evt.getTargetEntity() instanceof Player)) {
+            removeAll(evt.getTargetEntity().getUniqueId());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onChunkUnloads(UnloadChunkEvent evt) {
+        for (Entity entity : evt.getTargetChunk().getEntities()) {
+            removeAll(entity.getUniqueId());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onWorldUnloads(UnloadWorldEvent evt) {
+        if (evt.isCancelled()) {
+            return;
+        }
+        for (Entity entity : evt.getTargetWorld().getEntities()) {
+            removeAll(entity.getUniqueId());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerJoins(ClientConnectionEvent.Join evt) {
+        index(evt.getTargetEntity());
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerDisconnects(ClientConnectionEvent.Disconnect evt) {
+        removeAll(evt.getTargetEntity().getUniqueId());
+    }
+}
@@ -1,5 +1,7 @@
 package com.denizenscript.denizen2sponge.utilities.flags;
 
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
 import com.denizenscript.denizen2sponge.Denizen2Sponge;
 import com.google.common.reflect.TypeToken;
 import org.spongepowered.api.data.DataQuery;
@@ -7,6 +9,10 @@ import org.spongepowered.api.data.DataRegistration;
 import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.data.key.KeyFactory;
 import org.spongepowered.api.data.value.mutable.Value;
+import org.spongepowered.api.item.inventory.ItemStack;
+
+import java.util.Map;
+import java.util.Optional;
 
 public class FlagHelper {
 
@@ -36,4 +42,28 @@ public class FlagHelper {
                 .dataName("flagmap")
                 .buildAndRegister(Denizen2Sponge.plugin);
     }
+
+    // Item stacks are usually fresh copies, so flags are read straight from the stack.
+    // Decoding the saved flags is already cached by their content, in FlagMapDataBuilder.
+    public static MapTag getItemFlags(ItemStack item) {
+        Optional<FlagMap> fm = item.get(FLAGMAP);
+        return fm.isPresent() ? fm.get().flags : new MapTag();
+    }
+
+    public static AbstractTagObject copyFlag(AbstractTagObject flag) {
+        if (flag instanceof MapTag) {
+            MapTag entry = new MapTag();
+            entry.getInternal().putAll(((MapTag) flag).getInternal());
+            return entry;
+        }
+        return flag;
+    }
+
+    public static MapTag copyFlags(MapTag flags) {
+        MapTag copy = new MapTag();
+        for (Map.Entry<String, AbstractTagObject> flag : flags.getInternal().entrySet()) {
+            copy.getInternal().put(flag.getKey(), copyFlag(flag.getValue()));
+        }
+        return copy;
+    }
 }
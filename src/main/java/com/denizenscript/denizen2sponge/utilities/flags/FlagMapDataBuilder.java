@@ -9,10 +9,24 @@ import org.spongepowered.api.data.manipulator.DataManipulatorBuilder;
 import org.spongepowered.api.data.persistence.AbstractDataBuilder;
 import org.spongepowered.api.data.persistence.InvalidDataException;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public class FlagMapDataBuilder extends AbstractDataBuilder<FlagMapDataImpl> implements DataManipulatorBuilder<FlagMapDataImpl, ImmFlagMapDataImpl> {
 
+    private static final int DECODE_CACHE_SIZE = 1024;
+
+    // Item stacks are copied constantly, and each copy rebuilds its flags from the same saved text.
+    private static final Map<String, MapTag> decodeCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, MapTag>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MapTag> eldest) {
+                    return size() > DECODE_CACHE_SIZE;
+                }
+            });
+
     protected FlagMapDataBuilder(Class<FlagMapDataImpl> requiredClass, int supportedVersion) {
         super(requiredClass, supportedVersion);
     }
@@ -42,9 +56,13 @@ public class FlagMapDataBuilder extends AbstractDataBuilder<FlagMapDataImpl> imp
             return Optional.empty();
         }
         String val = str.get();
-        MapTag mt = (MapTag) Denizen2Core.loadFromSaved((e) -> {
-            throw new InvalidDataException("Denizen2: " + e);
-        }, val);
-        return Optional.of(new FlagMapDataImpl(new FlagMap(mt)));
+        MapTag mt = decodeCache.get(val);
+        if (mt == null) {
+            mt = (MapTag) Denizen2Core.loadFromSaved((e) -> {
+                throw new InvalidDataException("Denizen2: " + e);
+            }, val);
+            decodeCache.put(val, mt);
+        }
+        return Optional.of(new FlagMapDataImpl(new FlagMap(FlagHelper.copyFlags(mt))));
     }
 }
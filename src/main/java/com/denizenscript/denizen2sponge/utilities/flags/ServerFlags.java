@@ -0,0 +1,151 @@
+package com.denizenscript.denizen2sponge.utilities.flags;
+
+import com.denizenscript.denizen2core.tags.AbstractTagObject;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+import com.denizenscript.denizen2sponge.utilities.Utilities;
+import com.denizenscript.denizen2sponge.utilities.flags.storage.FlagStorage;
+
+import java.util.*;
+
+public class ServerFlags {
+
+    // Flags named like "namespace.rest" live in their own partition, which is only loaded
+    // the first time it is accessed, saved only when changed, and unloaded again when idle.
+
+    public static final long IDLE_UNLOAD_MILLIS = 5 * 60 * 1000;
+
+    public FlagStorage storage;
+
+    public MapTag main = new MapTag();
+
+    private final HashMap<String, MapTag> partitions = new HashMap<>();
+
+    private final HashMap<String, Long> lastAccess = new HashMap<>();
+
+    // Dirty partition names, with the main flag map as "".
+    private final HashSet<String> dirty = new HashSet<>();
+
+    private long nextSweep = 0;
+
+    public ServerFlags(FlagStorage storage) {
+        this.storage = storage;
+    }
+
+    public static String getPartitionName(String flag) {
+        int dot = flag.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        for (int i = 0; i < dot; i++) {
+            char c = flag.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-')) {
+                return null;
+            }
+        }
+        return flag.substring(0, dot);
+    }
+
+    public MapTag getFor(String flag) {
+        return getPartition(getPartitionName(flag));
+    }
+
+    public MapTag getPartition(String partition) {
+        if (partition == null) {
+            return main;
+        }
+        MapTag flags = partitions.get(partition);
+        if (flags == null) {
+            try {
+                flags = storage.load(partition);
+            }
+            catch (Exception e) {
+                Debug.exception(e);
+                flags = new MapTag();
+            }
+            partitions.put(partition, flags);
+        }
+        lastAccess.put(partition, System.currentTimeMillis());
+        return flags;
+    }
+
+    public Set<String> getLoadedPartitions() {
+        return Collections.unmodifiableSet(partitions.keySet());
+    }
+
+    public void markDirty(String partition) {
+        dirty.add(partition == null ? "" : partition);
+    }
+
+    public void flagChanged(String flag, MapTag entry) {
+        String partition = getPartitionName(flag);
+        markDirty(partition);
+        storage.flagChanged(partition, flag, entry);
+    }
+
+    public void load() {
+        try {
+            main = storage.load(null);
+        }
+        catch (Exception e) {
+            Debug.exception(e);
+        }
+        // Namespaced flags saved before partitioning existed get moved into their partitions.
+        Iterator<Map.Entry<String, AbstractTagObject>> it = main.getInternal().entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, AbstractTagObject> flag = it.next();
+            String partition = getPartitionName(flag.getKey());
+            if (partition != null) {
+                getPartition(partition).getInternal().put(flag.getKey(), flag.getValue());
+                markDirty(partition);
+                markDirty(null);
+                it.remove();
+            }
+        }
+    }
+
+    public void save() {
+        try {
+            storage.save(null, main);
+        }
+        catch (Exception e) {
+            Debug.exception(e);
+        }
+        dirty.remove("");
+        for (String partition : dirty) {
+            MapTag flags = partitions.get(partition);
+            if (flags == null) {
+                continue;
+            }
+            flags.getInternal().keySet().removeIf((flag) -> !Utilities.flagIsValidAndNotExpired(Debug::error, flags, flag));
+            try {
+                storage.save(partition, flags);
+            }
+            catch (Exception e) {
+                Debug.exception(e);
+            }
+        }
+        dirty.clear();
+    }
+
+    public void tick() {
+        storage.tick();
+        long now = System.currentTimeMillis();
+        if (now < nextSweep) {
+            return;
+        }
+        nextSweep = now + 60 * 1000;
+        Iterator<Map.Entry<String, Long>> it = lastAccess.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> access = it.next();
+            if (now - access.getValue() > IDLE_UNLOAD_MILLIS && !dirty.contains(access.getKey())) {
+                partitions.remove(access.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    public void close() {
+        storage.close();
+    }
+}
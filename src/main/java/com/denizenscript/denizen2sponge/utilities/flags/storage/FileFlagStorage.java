@@ -0,0 +1,55 @@
+package com.denizenscript.denizen2sponge.utilities.flags.storage;
+
+import com.denizenscript.denizen2core.Denizen2Core;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.utilities.CoreUtilities;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+
+import java.io.*;
+
+public class FileFlagStorage implements FlagStorage {
+
+    public File file;
+
+    public File partitionFolder;
+
+    public FileFlagStorage(File file, File partitionFolder) {
+        this.file = file;
+        this.partitionFolder = partitionFolder;
+    }
+
+    public File getFile(String partition) {
+        return partition == null ? file : new File(partitionFolder, partition + ".yml");
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public MapTag load(String partition) throws Exception {
+        File file = getFile(partition);
+        if (!file.exists()) {
+            return new MapTag();
+        }
+        InputStream is = new FileInputStream(file);
+        String str = CoreUtilities.streamToString(is);
+        is.close();
+        return (MapTag) Denizen2Core.loadFromSaved(Debug::error, str);
+    }
+
+    @Override
+    public void save(String partition, MapTag flags) throws Exception {
+        File file = getFile(partition);
+        file.getParentFile().mkdirs();
+        String str = flags.savable();
+        OutputStream os = new FileOutputStream(file, false);
+        OutputStreamWriter osw = new OutputStreamWriter(os);
+        osw.write(str);
+        osw.flush();
+        os.flush();
+        osw.close();
+        os.close();
+    }
+}
@@ -0,0 +1,28 @@
+package com.denizenscript.denizen2sponge.utilities.flags.storage;
+
+public class FlagChange {
+
+    // The flag partition, or null for the main server flag map.
+    public String partition;
+
+    public String flag;
+
+    // The savable form of the flag entry, or null if the flag was removed.
+    public String entry;
+
+    public long version;
+
+    public String node;
+
+    public FlagChange(String partition, String flag, String entry, long version, String node) {
+        this.partition = partition;
+        this.flag = flag;
+        this.entry = entry;
+        this.version = version;
+        this.node = node;
+    }
+
+    public boolean isNewerThan(long otherVersion, String otherNode) {
+        return version > otherVersion || (version == otherVersion && node.compareTo(otherNode) > 0);
+    }
+}
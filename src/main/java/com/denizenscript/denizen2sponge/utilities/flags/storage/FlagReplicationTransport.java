@@ -0,0 +1,13 @@
+package com.denizenscript.denizen2sponge.utilities.flags.storage;
+
+import java.util.List;
+
+public interface FlagReplicationTransport {
+
+    void connect(ReplicatedFlagStorage storage);
+
+    void disconnect(ReplicatedFlagStorage storage);
+
+    // Sends a batch of changes to every other connected node. May be called from any thread.
+    void send(ReplicatedFlagStorage sender, List<FlagChange> batch);
+}
@@ -0,0 +1,28 @@
+package com.denizenscript.denizen2sponge.utilities.flags.storage;
+
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+
+public interface FlagStorage {
+
+    // Partition names are null for the main (un-namespaced) server flag map.
+
+    String getName();
+
+    MapTag load(String partition) throws Exception;
+
+    void save(String partition, MapTag flags) throws Exception;
+
+    // Called whenever a single flag is set or edited, with a null entry for removals.
+    default void flagChanged(String partition, String flag, MapTag entry) {
+        // Do nothing by default.
+    }
+
+    // Called once per server tick.
+    default void tick() {
+        // Do nothing by default.
+    }
+
+    default void close() {
+        // Do nothing by default.
+    }
+}
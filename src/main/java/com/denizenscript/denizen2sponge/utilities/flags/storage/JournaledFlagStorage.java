@@ -0,0 +1,172 @@
+package com.denizenscript.denizen2sponge.utilities.flags.storage;
+
+import com.denizenscript.denizen2core.Denizen2Core;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.utilities.CoreUtilities;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+
+public class JournaledFlagStorage implements FlagStorage {
+
+    // Snapshots are replaced atomically, and every change made since the last snapshot
+    // is appended to a journal that gets replayed on load, so a crash loses at most one record.
+
+    public File file;
+
+    public File partitionFolder;
+
+    private final HashMap<String, DataOutputStream> journals = new HashMap<>();
+
+    public JournaledFlagStorage(File file, File partitionFolder) {
+        this.file = file;
+        this.partitionFolder = partitionFolder;
+    }
+
+    public File getFile(String partition) {
+        return partition == null ? file : new File(partitionFolder, partition + ".yml");
+    }
+
+    public File getJournalFile(String partition) {
+        return new File(getFile(partition).getPath() + ".journal");
+    }
+
+    @Override
+    public String getName() {
+        return "journal";
+    }
+
+    @Override
+    public MapTag load(String partition) throws Exception {
+        File file = getFile(partition);
+        File journalFile = getJournalFile(partition);
+        MapTag flags;
+        if (file.exists()) {
+            InputStream is = new FileInputStream(file);
+            String str = CoreUtilities.streamToString(is);
+            is.close();
+            flags = (MapTag) Denizen2Core.loadFromSaved(Debug::error, str);
+        }
+        else {
+            flags = new MapTag();
+        }
+        if (journalFile.exists()) {
+            int replayed = 0;
+            DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+            try {
+                while (true) {
+                    String flag = readString(dis);
+                    String entry = readString(dis);
+                    if (entry == null) {
+                        flags.getInternal().remove(flag);
+                    }
+                    else {
+                        flags.getInternal().put(flag, Denizen2Core.loadFromSaved(Debug::error, entry));
+                    }
+                    replayed++;
+                }
+            }
+            catch (EOFException ex) {
+                // End of the journal, or a record that was cut off mid-write.
+            }
+            finally {
+                dis.close();
+            }
+            if (replayed > 0) {
+                Debug.info("Replayed " + replayed + " server flag changes from the journal of "
+                        + (partition == null ? "the main flag map" : "flag partition '" + partition + "'") + ".");
+            }
+        }
+        return flags;
+    }
+
+    @Override
+    public void save(String partition, MapTag flags) throws Exception {
+        File file = getFile(partition);
+        file.getParentFile().mkdirs();
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream os = new FileOutputStream(temp, false);
+        os.write(flags.savable().getBytes(StandardCharsets.UTF_8));
+        os.flush();
+        os.getFD().sync();
+        os.close();
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        closeJournal(journals.remove(partition == null ? "" : partition));
+        Files.deleteIfExists(getJournalFile(partition).toPath());
+    }
+
+    @Override
+    public void flagChanged(String partition, String flag, MapTag entry) {
+        try {
+            String id = partition == null ? "" : partition;
+            DataOutputStream journal = journals.get(id);
+            if (journal == null) {
+                File journalFile = getJournalFile(partition);
+                journalFile.getParentFile().mkdirs();
+                journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+                journals.put(id, journal);
+            }
+            writeString(journal, flag);
+            writeString(journal, entry == null ? null : entry.savable());
+        }
+        catch (IOException ex) {
+            Debug.exception(ex);
+        }
+    }
+
+    @Override
+    public void tick() {
+        for (DataOutputStream journal : journals.values()) {
+            try {
+                journal.flush();
+            }
+            catch (IOException ex) {
+                Debug.exception(ex);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (DataOutputStream journal : journals.values()) {
+            closeJournal(journal);
+        }
+        journals.clear();
+    }
+
+    private static void closeJournal(DataOutputStream journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        }
+        catch (IOException ex) {
+            Debug.exception(ex);
+        }
+    }
+
+    private static void writeString(DataOutputStream dos, String str) throws IOException {
+        if (str == null) {
+            dos.writeInt(-1);
+            return;
+        }
+        byte[] data = str.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(data.length);
+        dos.write(data);
+    }
+
+    private static String readString(DataInputStream dis) throws IOException {
+        int len = dis.readInt();
+        if (len < 0) {
+            return null;
+        }
+        byte[] data = new byte[len];
+        dis.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
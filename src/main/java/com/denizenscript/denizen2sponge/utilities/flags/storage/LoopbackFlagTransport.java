@@ -0,0 +1,47 @@
+package com.denizenscript.denizen2sponge.utilities.flags.storage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class LoopbackFlagTransport implements FlagReplicationTransport {
+
+    // Connects nodes living in the same process, for local testing of replication setups.
+    // Nothing is sent outside of the server: reaching other servers needs a network transport,
+    // installed with ReplicatedFlagStorage.setTransport.
+
+    private static final Map<String, List<ReplicatedFlagStorage>> channels = new ConcurrentHashMap<>();
+
+    public String channel;
+
+    public LoopbackFlagTransport(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void connect(ReplicatedFlagStorage storage) {
+        channels.computeIfAbsent(channel, (k) -> new CopyOnWriteArrayList<>()).add(storage);
+    }
+
+    @Override
+    public void disconnect(ReplicatedFlagStorage storage) {
+        List<ReplicatedFlagStorage> nodes = channels.get(channel);
+        if (nodes != null) {
+            nodes.remove(storage);
+        }
+    }
+
+    @Override
+    public void send(ReplicatedFlagStorage sender, List<FlagChange> batch) {
+        List<ReplicatedFlagStorage> nodes = channels.get(channel);
+        if (nodes == null) {
+            return;
+        }
+        for (ReplicatedFlagStorage node : nodes) {
+            if (node != sender) {
+                node.receive(batch);
+            }
+        }
+    }
+}
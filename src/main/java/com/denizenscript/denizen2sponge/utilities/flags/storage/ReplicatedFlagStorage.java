@@ -0,0 +1,158 @@
+package com.denizenscript.denizen2sponge.utilities.flags.storage;
+
+import com.denizenscript.denizen2core.Denizen2Core;
+import com.denizenscript.denizen2core.tags.objects.MapTag;
+import com.denizenscript.denizen2core.utilities.debugging.Debug;
+import com.denizenscript.denizen2sponge.Denizen2Sponge;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class ReplicatedFlagStorage implements FlagStorage {
+
+    // Local reads are served from the loaded flag maps, which act as this node's cache.
+    // Changes are versioned per flag, batched each tick and handed to the transport for the
+    // other nodes, where they only replace an entry if they are newer than what that node
+    // already has. Versions are only needed to order changes that cross each other in flight,
+    // so they are forgotten a while after the flag last changed.
+
+    // How long the version of a flag is remembered after its last change, in milliseconds.
+    public static final long VERSION_LIFETIME = 10 * 60 * 1000;
+
+    private static class KnownVersion {
+
+        public final long version;
+
+        public final String node;
+
+        public final long time;
+
+        public KnownVersion(FlagChange change) {
+            this.version = change.version;
+            this.node = change.node;
+            this.time = System.currentTimeMillis();
+        }
+    }
+
+    public FlagStorage local;
+
+    public FlagReplicationTransport transport;
+
+    public String node;
+
+    private long clock = 0;
+
+    private boolean connected = false;
+
+    // Ordered from the least to the most recently changed flag.
+    private final LinkedHashMap<String, KnownVersion> versions = new LinkedHashMap<>();
+
+    private List<FlagChange> outgoing = new ArrayList<>();
+
+    private final ConcurrentLinkedQueue<FlagChange> incoming = new ConcurrentLinkedQueue<>();
+
+    public ReplicatedFlagStorage(FlagStorage local, FlagReplicationTransport transport, String node) {
+        this.local = local;
+        this.transport = transport;
+        this.node = node;
+    }
+
+    // Switches to another transport, such as a network transport provided by another plugin.
+    public void setTransport(FlagReplicationTransport newTransport) {
+        if (connected) {
+            transport.disconnect(this);
+            newTransport.connect(this);
+        }
+        transport = newTransport;
+    }
+
+    private void remember(FlagChange change) {
+        // Removed first, so the flag moves to the end of the order.
+        versions.remove(change.flag);
+        versions.put(change.flag, new KnownVersion(change));
+    }
+
+    private void forgetOldVersions() {
+        long oldest = System.currentTimeMillis() - VERSION_LIFETIME;
+        Iterator<KnownVersion> it = versions.values().iterator();
+        while (it.hasNext() && it.next().time < oldest) {
+            it.remove();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "replicated";
+    }
+
+    @Override
+    public MapTag load(String partition) throws Exception {
+        if (!connected) {
+            transport.connect(this);
+            connected = true;
+        }
+        return local.load(partition);
+    }
+
+    @Override
+    public void save(String partition, MapTag flags) throws Exception {
+        local.save(partition, flags);
+    }
+
+    @Override
+    public void flagChanged(String partition, String flag, MapTag entry) {
+        local.flagChanged(partition, flag, entry);
+        clock++;
+        FlagChange change = new FlagChange(partition, flag, entry == null ? null : entry.savable(), clock, node);
+        remember(change);
+        outgoing.add(change);
+    }
+
+    public void receive(List<FlagChange> batch) {
+        incoming.addAll(batch);
+    }
+
+    @Override
+    public void tick() {
+        FlagChange change;
+        while ((change = incoming.poll()) != null) {
+            apply(change);
+        }
+        if (!outgoing.isEmpty()) {
+            List<FlagChange> batch = outgoing;
+            outgoing = new ArrayList<>();
+            transport.send(this, batch);
+        }
+        forgetOldVersions();
+        local.tick();
+    }
+
+    private void apply(FlagChange change) {
+        clock = Math.max(clock, change.version);
+        KnownVersion known = versions.get(change.flag);
+        if (known != null && !change.isNewerThan(known.version, known.node)) {
+            return;
+        }
+        remember(change);
+        MapTag flags = Denizen2Sponge.instance.serverFlags.getPartition(change.partition);
+        if (change.entry == null) {
+            flags.getInternal().remove(change.flag);
+            local.flagChanged(change.partition, change.flag, null);
+        }
+        else {
+            MapTag entry = MapTag.getFor(Debug::error, Denizen2Core.loadFromSaved(Debug::error, change.entry));
+            flags.getInternal().put(change.flag, entry);
+            local.flagChanged(change.partition, change.flag, entry);
+        }
+        Denizen2Sponge.instance.serverFlags.markDirty(change.partition);
+    }
+
+    @Override
+    public void close() {
+        transport.disconnect(this);
+        local.close();
+    }
+}